@@ -0,0 +1,127 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the price parser and string rules the flows run per element. Each invocation
+ * walks the whole input set once, so scores are "input sets per microsecond"; run with
+ * {@code -prof gc} (the {@code benchmark} profile does) for bytes allocated per set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextRulesBenchmark {
+
+    /** Price texts as the cart, product and monitor pages render them, including misses. */
+    private final String[] prices = {
+        "$59.99", "₹1,23,456.00", "₹ 499", "USD 1,299.00", "$1,049.95",
+        "Subtotal (2 items): $119.98", "₹12,999.00\n₹12,999", "Currently unavailable."
+    };
+
+    private final String[] ratings = {
+        "4.3 out of 5 stars", "4 Stars & Up", "5.0 out of 5 stars", "Customer rating", "3.5 out of 5"
+    };
+
+    private final String[] ratingHrefs = {
+        "https://www.amazon.in/s?k=laptop&rh=n%3A1375424031%2Cp_72%3A1318476031&dc&qid=1700000000&rnid=1318475031&ref=sr_nr_p_72_1",
+        "https://www.amazon.in/s?k=laptop&rh=p_72%3A4-&dc",
+        "/s?k=laptop&p_72=4-&ref=sr_nr_p_72_1",
+        "/s?k=laptop&ref=sr_pg_2"
+    };
+
+    private final String[] usernames = {
+        "testuser01", "TestUser99", "user_name1", "short", "abcdefghijklmnop", null
+    };
+
+    private final String[] profileNames = {
+        "Hello, Ben", "Welcome, Sue", "Hi, Ben", "Hello, Ted", "Hello, sign in"
+    };
+
+    /** Result-card text with and without sponsored markers, at typical card length. */
+    private final String[] cardTexts = {
+        "Sponsored\nHP 15s, 12th Gen Intel Core i5-1235U, 15.6-inch (39.6 cm), FHD, 16GB DDR4, 512GB SSD"
+            + "\n4.1 out of 5 stars 1,024\n₹52,990\nM.R.P: ₹68,000 (22% off)\nFREE delivery Tue, 21 Oct\nAdd to cart",
+        "Lenovo IdeaPad Slim 3 Intel Core i7 12th Gen 15.6\" FHD Thin & Light Laptop"
+            + "\n4.0 out of 5 stars 2,311\n₹61,490\nM.R.P: ₹90,090 (32% off)\nGet it by Wednesday\nAdd to cart",
+        "Apple 2023 MacBook Pro (14-inch, M3 chip with 8-core CPU and 10-core GPU)\n4.6 out of 5 stars 86"
+            + "\n₹1,69,900\nFREE delivery Thu, 23 Oct\nOnly 2 left in stock."
+    };
+
+    private final PriceParser.ParsedPrice parsed = new PriceParser.ParsedPrice();
+
+    /**
+     * The regex-and-replace cleaning every extraction site used before {@link PriceParser},
+     * kept as the baseline.
+     */
+    @Benchmark
+    public void legacyCleanAndParsePrice(Blackhole blackhole) {
+        for (String price : prices) {
+            String cleanPrice = price.replaceAll("[^0-9.,]", "");
+            if (cleanPrice.contains(",")) {
+                cleanPrice = cleanPrice.replace(",", "");
+            }
+            try {
+                blackhole.consume(Double.parseDouble(cleanPrice));
+            } catch (NumberFormatException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public void priceParser(Blackhole blackhole) {
+        for (String price : prices) {
+            blackhole.consume(PriceParser.parse(price, parsed));
+            blackhole.consume(parsed.amount());
+        }
+    }
+
+    @Benchmark
+    public void extractRating(Blackhole blackhole) {
+        for (String rating : ratings) {
+            blackhole.consume(TextRules.extractRating(rating));
+        }
+    }
+
+    @Benchmark
+    public void extractRatingFromHref(Blackhole blackhole) {
+        for (String href : ratingHrefs) {
+            blackhole.consume(TextRules.extractRatingFromHref(href));
+        }
+    }
+
+    @Benchmark
+    public void isValidUsername(Blackhole blackhole) {
+        for (String username : usernames) {
+            blackhole.consume(TextRules.isValidUsername(username));
+        }
+    }
+
+    @Benchmark
+    public void hasForbiddenCharacter(Blackhole blackhole) {
+        for (String profileName : profileNames) {
+            blackhole.consume(TextRules.hasForbiddenCharacter(profileName));
+        }
+    }
+
+    @Benchmark
+    public void sponsoredKeyword(Blackhole blackhole) {
+        for (String text : cardTexts) {
+            blackhole.consume(SearchResultSnapshot.sponsoredKeyword(text));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Picks each product's next polling interval from how often its price has been changing.
+ * <p>
+ * A new product starts at the minimum interval. The interval doubles after every check that finds
+ * the price unchanged and halves after every change, within [min, max]. Each product also keeps a
+ * time-decayed estimate of its change rate: each observation contributes "changed or not" over the
+ * time since the previous one, weighted by how much of the half-life that gap covers, so irregular
+ * polling does not bias it. The interval never exceeds the time in which half a change is expected,
+ * so a product that moved a few times recently does not back off after a quiet spell. Products
+ * within a few percent above their trigger level are pulled towards the minimum interval regardless
+ * of volatility. State per product is a handful of fields; the policy is safe to share across threads.
+ */
+public final class AdaptivePollPolicy {
+
+    private static final Logger logger = Logger.getLogger(AdaptivePollPolicy.class.getName());
+
+    /** Expected price changes between two checks the interval aims for. */
+    private static final double TARGET_CHANGES_PER_CHECK = 0.5;
+    /** Relative price movement below which an observation counts as unchanged (0.1%). */
+    private static final double MIN_RELATIVE_CHANGE = 0.001;
+    private static final double BACKOFF_FACTOR = 2;
+
+    private final long minMillis;
+    private final long maxMillis;
+    private final double halfLifeMillis;
+    private final double nearThresholdPercent;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * @param nearThresholdPercent distance above the trigger level, in percent, inside which the
+     *                             interval shrinks towards {@code min}, faster the closer the price; 0 disables it
+     */
+    public AdaptivePollPolicy(Duration min, Duration max, Duration halfLife, double nearThresholdPercent) {
+        if (min.isNegative() || min.isZero() || max.compareTo(min) < 0) {
+            throw new IllegalArgumentException("Need 0 < min <= max: " + min + ", " + max);
+        }
+        if (halfLife.isNegative() || halfLife.isZero() || nearThresholdPercent < 0) {
+            throw new IllegalArgumentException("Half-life must be positive and the threshold margin not negative: "
+                + halfLife + ", " + nearThresholdPercent);
+        }
+        this.minMillis = min.toMillis();
+        this.maxMillis = max.toMillis();
+        this.halfLifeMillis = halfLife.toMillis();
+        this.nearThresholdPercent = nearThresholdPercent;
+    }
+
+    /**
+     * Policy configured by {@code -Dmonitor.poll.minMinutes} (default 5), {@code -Dmonitor.poll.maxMinutes}
+     * (default 1440), {@code -Dmonitor.poll.halfLifeHours} (default 72) and
+     * {@code -Dmonitor.poll.nearThresholdPercent} (default 5).
+     */
+    public static AdaptivePollPolicy fromSystemProperties() {
+        return new AdaptivePollPolicy(
+            Duration.ofMinutes(Long.getLong("monitor.poll.minMinutes", 5L)),
+            Duration.ofMinutes(Long.getLong("monitor.poll.maxMinutes", 1440L)),
+            Duration.ofHours(Long.getLong("monitor.poll.halfLifeHours", 72L)),
+            Double.parseDouble(System.getProperty("monitor.poll.nearThresholdPercent", "5")));
+    }
+
+    public Duration minInterval() {
+        return Duration.ofMillis(minMillis);
+    }
+
+    /**
+     * Feeds one observation and returns how long to wait before checking the product again.
+     * Observations without a price leave the estimate alone and keep the current interval.
+     *
+     * @param triggerLevel highest price that would alert, or {@code NaN} if unknown
+     */
+    public Duration nextInterval(String key, long epochMillis, double price, double triggerLevel) {
+        State state = states.computeIfAbsent(key, k -> new State());
+        synchronized (state) {
+            if (!(price > 0)) {
+                return Duration.ofMillis(state.returnedMillis == 0 ? minMillis : state.returnedMillis);
+            }
+            boolean changed = false;
+            if (state.lastAt != Long.MIN_VALUE && epochMillis > state.lastAt) {
+                double elapsed = epochMillis - state.lastAt;
+                changed = Math.abs(price - state.lastPrice) / state.lastPrice >= MIN_RELATIVE_CHANGE;
+                double weight = 1 - Math.exp(-elapsed * Math.log(2) / halfLifeMillis);
+                state.changesPerMilli += weight * ((changed ? 1 : 0) / elapsed - state.changesPerMilli);
+            }
+            if (state.lastAt == Long.MIN_VALUE || epochMillis > state.lastAt) {
+                state.lastAt = epochMillis;
+                state.lastPrice = price;
+            }
+
+            double interval;
+            if (state.intervalMillis == 0) {
+                interval = minMillis;
+            } else if (changed) {
+                interval = state.intervalMillis / BACKOFF_FACTOR;
+            } else {
+                interval = state.intervalMillis * BACKOFF_FACTOR;
+            }
+            if (state.changesPerMilli > 0) {
+                interval = Math.min(interval, TARGET_CHANGES_PER_CHECK / state.changesPerMilli);
+            }
+            interval = Math.max(minMillis, Math.min(maxMillis, interval));
+            state.intervalMillis = (long) interval;
+
+            double distancePercent = (price - triggerLevel) / triggerLevel * 100;
+            if (nearThresholdPercent > 0 && distancePercent >= 0 && distancePercent < nearThresholdPercent) {
+                double closeness = distancePercent / nearThresholdPercent;
+                interval = minMillis + (interval - minMillis) * closeness * closeness;
+            }
+            state.returnedMillis = (long) interval;
+            logger.fine("Next check of " + key + " in " + state.returnedMillis / 1000 + " s ("
+                + String.format("%.2f", changesPerDay(state)) + " changes/day)");
+            return Duration.ofMillis(state.returnedMillis);
+        }
+    }
+
+    /** Current change-rate estimate for the product, in changes per day; 0 if never observed. */
+    public double changesPerDay(String key) {
+        State state = states.get(key);
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return changesPerDay(state);
+        }
+    }
+
+    /** Drops the state of a product that is no longer monitored. */
+    public void forget(String key) {
+        states.remove(key);
+    }
+
+    private static double changesPerDay(State state) {
+        return state.changesPerMilli * Duration.ofDays(1).toMillis();
+    }
+
+    private static final class State {
+        long lastAt = Long.MIN_VALUE;
+        double lastPrice;
+        double changesPerMilli;
+        /** Interval from volatility alone, before the threshold adjustment. */
+        long intervalMillis;
+        long returnedMillis;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Volatility-driven polling intervals and their use by the monitor service
+ */
+public class AdaptivePollPolicyTest {
+
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+
+    private final AdaptivePollPolicy policy = new AdaptivePollPolicy(
+        Duration.ofMinutes(5), Duration.ofHours(24), Duration.ofHours(12), 5);
+
+    @Test
+    public void stablePricesBackOffGraduallyToTheMaximum() {
+        long now = 0;
+        Duration interval = policy.nextInterval("stable", now, 100, Double.NaN);
+        assertEquals(Duration.ofMinutes(5), interval);
+
+        Duration previous = interval;
+        for (int check = 0; check < 40; check++) {
+            now += interval.toMillis();
+            interval = policy.nextInterval("stable", now, 100, Double.NaN);
+            assertTrue("interval at most doubles: " + previous + " -> " + interval,
+                interval.compareTo(previous.multipliedBy(2)) <= 0);
+            previous = interval;
+        }
+        assertEquals(Duration.ofHours(24), interval);
+        assertTrue(policy.changesPerDay("stable") < 0.5);
+    }
+
+    @Test
+    public void volatilePricesStayNearTheMinimum() {
+        long now = 0;
+        Duration interval = Duration.ZERO;
+        for (int check = 0; check < 50; check++) {
+            interval = policy.nextInterval("volatile", now, check % 2 == 0 ? 100 : 97, Double.NaN);
+            now += 10 * MINUTE;
+        }
+        assertTrue("volatile interval: " + interval, interval.compareTo(Duration.ofMinutes(15)) <= 0);
+        assertTrue(policy.changesPerDay("volatile") > 20);
+    }
+
+    @Test
+    public void pricesJustAboveTheTriggerLevelAreCheckedSooner() {
+        long now = 0;
+        Duration far = Duration.ZERO;
+        Duration near = Duration.ZERO;
+        for (int check = 0; check < 20; check++) {
+            far = policy.nextInterval("far", now, 100, 50);
+            near = policy.nextInterval("near", now, 100, 99);
+            now += Duration.ofHours(1).toMillis();
+        }
+        assertTrue(near + " vs " + far, near.compareTo(far.dividedBy(2)) < 0);
+        assertTrue(near.compareTo(Duration.ofMinutes(5)) >= 0);
+        assertEquals("a missing price keeps the interval", near, policy.nextInterval("near", now, 0, 99));
+    }
+
+    @Test
+    public void monitorServiceUsesTheIntervalEachCheckReturns() throws InterruptedException {
+        AtomicInteger backedOff = new AtomicInteger();
+        AtomicInteger frequent = new AtomicInteger();
+        try (MonitorService service = new MonitorService(2, 1000, 1000, 0, Duration.ofSeconds(10))) {
+            service.watch("http://shop.example/dp/1", Duration.ofMillis(20), () -> {
+                backedOff.incrementAndGet();
+                return Duration.ofHours(1);
+            });
+            service.watch("http://shop.example/dp/2", Duration.ofMillis(20), () -> {
+                frequent.incrementAndGet();
+                return Duration.ofMillis(20);
+            });
+            Thread.sleep(500);
+        }
+        assertEquals(1, backedOff.get());
+        assertTrue("frequent checks: " + frequent.get(), frequent.get() >= 5);
+    }
+}
@@ -0,0 +1,350 @@
+package com.example;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Counts and times every WebDriver and WebElement call made through a decorated driver, by
+ * command (findElements, getText, click, executeScript, ...) and by the suite helper that made it.
+ * <p>
+ * {@link #decorate(WebDriver)} wraps a session with Selenium's {@link EventFiringDecorator}.
+ * Calls are attributed to the innermost {@code com.example} frame outside the shared page
+ * utilities, found with a {@link StackWalker}. A {@link Scope} opened per task collects that
+ * thread's calls and logs a summary when closed; totals for the whole run are written to
+ * {@code -Dcommand.metrics.file} (default {@code target/command-metrics.csv}) when the JVM exits.
+ */
+public final class CommandMetrics implements WebDriverListener {
+
+    private static final Logger logger = Logger.getLogger(CommandMetrics.class.getName());
+
+    /** Interfaces whose commands are reported by bare method name. */
+    private static final Set<Class<?>> SESSION_TYPES = new HashSet<>(Arrays.asList(
+        Object.class, WebDriver.class, WebElement.class, SearchContext.class, JavascriptExecutor.class));
+
+    /**
+     * Accessors answered locally by the client; they never reach the browser. Other interfaces'
+     * commands are named {@code Interface.method}, so {@code TargetLocator.window} (a round trip)
+     * is told apart from {@code Options.window} and {@code Logs.get} from navigation {@code get}.
+     */
+    private static final Set<String> LOCAL_COMMANDS = new HashSet<>(Arrays.asList(
+        "manage", "switchTo", "navigate", "Options.timeouts", "Options.window", "Options.logs",
+        "WrapsDriver.getWrappedDriver", "WrapsElement.getWrappedElement", "toString", "hashCode", "equals"));
+
+    /** Shared page utilities; their calls are charged to the helper that used them. */
+    private static final Set<String> UTILITY_CLASSES = new HashSet<>(Arrays.asList(
+        CommandMetrics.class.getName(), DriverPool.class.getName(), ElementLookup.class.getName(),
+        PageReadiness.class.getName(), SearchResultSnapshot.class.getName(), ResourceBlocker.class.getName(),
+        SelectorRegistry.class.getName(), StepTracer.class.getName()));
+
+    private static final int SUMMARY_LINES = 10;
+
+    private static volatile CommandMetrics shared;
+
+    private final StackWalker walker = StackWalker.getInstance();
+    private final ThreadLocal<Deque<Long>> started = ThreadLocal.withInitial(ArrayDeque::new);
+    private final ThreadLocal<Scope> scope = new ThreadLocal<>();
+    private final Map<String, Stat> totals = new HashMap<>();
+    private final Path file;
+
+    CommandMetrics(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Process-wide listener, exporting its totals when the JVM exits.
+     */
+    public static CommandMetrics shared() {
+        CommandMetrics metrics = shared;
+        if (metrics == null) {
+            synchronized (CommandMetrics.class) {
+                metrics = shared;
+                if (metrics == null) {
+                    metrics = new CommandMetrics(Paths.get(System.getProperty("command.metrics.file", "target/command-metrics.csv")));
+                    Runtime.getRuntime().addShutdownHook(new Thread(metrics::export, "command-metrics-export"));
+                    shared = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Wraps the session so every call is measured by the shared listener; returns the session
+     * unchanged with {@code -Dcommand.metrics=false}. The decorated driver keeps the session's
+     * interfaces ({@code JavascriptExecutor}, {@code HasCdp}, ...).
+     */
+    public static WebDriver decorate(WebDriver driver) {
+        if (!Boolean.parseBoolean(System.getProperty("command.metrics", "true"))) {
+            return driver;
+        }
+        return new EventFiringDecorator<>(shared()).decorate(driver);
+    }
+
+    /**
+     * Starts collecting this thread's calls under {@code name}; close it to log the summary.
+     */
+    public Scope begin(String name) {
+        Scope opened = new Scope(this, name, scope.get());
+        scope.set(opened);
+        return opened;
+    }
+
+    /** Runs {@code work} inside a scope named {@code name}. */
+    public void measure(String name, Runnable work) {
+        Scope opened = begin(name);
+        try {
+            work.run();
+        } finally {
+            opened.close();
+        }
+    }
+
+    /** Runs {@code work} inside a scope named {@code name} and returns its result. */
+    public <T> T measure(String name, Supplier<T> work) {
+        Scope opened = begin(name);
+        try {
+            return work.get();
+        } finally {
+            opened.close();
+        }
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        if (!LOCAL_COMMANDS.contains(command(method))) {
+            started.get().push(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        record(method, false);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        record(method, true);
+    }
+
+    private void record(Method method, boolean failed) {
+        Deque<Long> calls = started.get();
+        String command = command(method);
+        if (LOCAL_COMMANDS.contains(command) || calls.isEmpty()) {
+            return;
+        }
+        long nanos = System.nanoTime() - calls.pop();
+        String key = caller() + '|' + command;
+        Scope current = scope.get();
+        if (current != null) {
+            current.stats.computeIfAbsent(key, k -> new Stat()).add(1, failed ? 1 : 0, nanos, nanos);
+        } else {
+            synchronized (totals) {
+                totals.computeIfAbsent(key, k -> new Stat()).add(1, failed ? 1 : 0, nanos, nanos);
+            }
+        }
+    }
+
+    /**
+     * The method name for session commands, {@code Interface.method} for everything else
+     * ({@code TargetLocator.window}, {@code Navigation.to}, {@code Logs.get}, ...).
+     */
+    static String command(Method method) {
+        Class<?> declaring = method.getDeclaringClass();
+        return SESSION_TYPES.contains(declaring) ? method.getName() : declaring.getSimpleName() + '.' + method.getName();
+    }
+
+    /**
+     * {@code Class.method} of the innermost project frame outside the page utilities; lambda
+     * bodies are reported under the method that declared them.
+     */
+    private String caller() {
+        return walker.walk(frames -> {
+            StackWalker.StackFrame utility = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                if (!frame.getClassName().startsWith("com.example.")) {
+                    continue;
+                }
+                if (!UTILITY_CLASSES.contains(frame.getClassName())) {
+                    return describe(frame);
+                }
+                if (utility == null && !frame.getClassName().equals(CommandMetrics.class.getName())) {
+                    utility = frame;
+                }
+            }
+            return utility == null ? "(unknown)" : describe(utility);
+        });
+    }
+
+    private static String describe(StackWalker.StackFrame frame) {
+        String className = frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1);
+        String method = frame.getMethodName();
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', "lambda$".length());
+            method = end < 0 ? method.substring("lambda$".length()) : method.substring("lambda$".length(), end);
+        }
+        return className + '.' + method;
+    }
+
+    /** Totals of closed scopes and unscoped calls, keyed {@code helper|command}. */
+    Map<String, Stat> totals() {
+        Map<String, Stat> copy = new TreeMap<>();
+        synchronized (totals) {
+            for (Map.Entry<String, Stat> entry : totals.entrySet()) {
+                copy.put(entry.getKey(), entry.getValue().copy());
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Writes the run totals as {@code helper,command,calls,errors,totalMicros,maxMicros}.
+     */
+    public void export() {
+        Map<String, Stat> snapshot = totals();
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write("helper,command,calls,errors,totalMicros,maxMicros\n");
+                for (Map.Entry<String, Stat> entry : snapshot.entrySet()) {
+                    Stat stat = entry.getValue();
+                    out.write(entry.getKey().replace('|', ',') + ',' + stat.calls + ',' + stat.errors + ','
+                        + TimeUnit.NANOSECONDS.toMicros(stat.nanos) + ',' + TimeUnit.NANOSECONDS.toMicros(stat.maxNanos) + '\n');
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warning("Could not write command metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Calls made on one thread between {@link #begin(String)} and {@link #close()}.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final CommandMetrics metrics;
+        private final String name;
+        private final Scope outer;
+        private final long openedAt = System.nanoTime();
+        private final Map<String, Stat> stats = new HashMap<>();
+        private boolean closed;
+
+        private Scope(CommandMetrics metrics, String name, Scope outer) {
+            this.metrics = metrics;
+            this.name = name;
+            this.outer = outer;
+        }
+
+        /** Round trips recorded so far. */
+        public long calls() {
+            long calls = 0;
+            for (Stat stat : stats.values()) {
+                calls += stat.calls;
+            }
+            return calls;
+        }
+
+        /** Calls and time per helper, most expensive first. */
+        public List<String> summary() {
+            Map<String, Stat> byHelper = new HashMap<>();
+            Map<String, Map<String, Long>> commandsByHelper = new HashMap<>();
+            for (Map.Entry<String, Stat> entry : stats.entrySet()) {
+                String helper = entry.getKey().substring(0, entry.getKey().indexOf('|'));
+                String command = entry.getKey().substring(helper.length() + 1);
+                Stat stat = entry.getValue();
+                byHelper.computeIfAbsent(helper, h -> new Stat()).add(stat.calls, stat.errors, stat.nanos, stat.maxNanos);
+                commandsByHelper.computeIfAbsent(helper, h -> new TreeMap<>()).merge(command, stat.calls, Long::sum);
+            }
+            List<Map.Entry<String, Stat>> helpers = new ArrayList<>(byHelper.entrySet());
+            helpers.sort((a, b) -> Long.compare(b.getValue().nanos, a.getValue().nanos));
+            List<String> lines = new ArrayList<>();
+            for (Map.Entry<String, Stat> helper : helpers) {
+                lines.add(helper.getKey() + ": " + helper.getValue().calls + " calls, "
+                    + TimeUnit.NANOSECONDS.toMillis(helper.getValue().nanos) + " ms "
+                    + commandsByHelper.get(helper.getKey()));
+            }
+            return lines;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            metrics.scope.set(outer);
+            long callNanos = 0;
+            synchronized (metrics.totals) {
+                for (Map.Entry<String, Stat> entry : stats.entrySet()) {
+                    Stat stat = entry.getValue();
+                    metrics.totals.computeIfAbsent(entry.getKey(), k -> new Stat())
+                        .add(stat.calls, stat.errors, stat.nanos, stat.maxNanos);
+                    callNanos += stat.nanos;
+                }
+            }
+            if (stats.isEmpty()) {
+                return;
+            }
+            StringBuilder report = new StringBuilder(name).append(": ").append(calls()).append(" WebDriver round trips, ")
+                .append(TimeUnit.NANOSECONDS.toMillis(callNanos)).append(" ms in WebDriver calls of ")
+                .append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAt)).append(" ms");
+            List<String> lines = summary();
+            for (String line : lines.subList(0, Math.min(SUMMARY_LINES, lines.size()))) {
+                report.append("\n  ").append(line);
+            }
+            logger.info(report.toString());
+        }
+    }
+
+    static final class Stat {
+        long calls;
+        long errors;
+        long nanos;
+        long maxNanos;
+
+        void add(long calls, long errors, long nanos, long maxNanos) {
+            this.calls += calls;
+            this.errors += errors;
+            this.nanos += nanos;
+            this.maxNanos = Math.max(this.maxNanos, maxNanos);
+        }
+
+        Stat copy() {
+            Stat copy = new Stat();
+            copy.add(calls, errors, nanos, maxNanos);
+            return copy;
+        }
+    }
+}
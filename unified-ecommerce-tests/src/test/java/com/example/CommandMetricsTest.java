@@ -0,0 +1,165 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.logging.Logs;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Command counting and helper attribution through the decorated driver
+ */
+public class CommandMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void countsCommandsPerHelperWithinAScope() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("metrics.csv");
+        CommandMetrics metrics = new CommandMetrics(file);
+        WebDriver driver = new EventFiringDecorator<>(metrics).decorate(fakeDriver());
+        assertTrue(driver instanceof JavascriptExecutor);
+
+        try (CommandMetrics.Scope scope = metrics.begin("Task 9")) {
+            assertEquals(Arrays.asList("First", "Second"), readTitles(driver));
+            ((JavascriptExecutor) driver).executeScript("return 1");
+            Supplier<String> title = () -> driver.getTitle();
+            assertEquals("Results", title.get());
+            driver.manage();
+            try {
+                driver.findElement(By.id("missing"));
+                fail("Expected the fake driver to fail");
+            } catch (NoSuchElementException expected) {
+                // counted as an error
+            }
+
+            assertEquals(6, scope.calls());
+            assertTrue(scope.summary().get(0), scope.summary().get(0).startsWith("CommandMetricsTest.readTitles: 3 calls"));
+        }
+
+        Map<String, CommandMetrics.Stat> totals = metrics.totals();
+        assertEquals(1, totals.get("CommandMetricsTest.readTitles|findElements").calls);
+        assertEquals(2, totals.get("CommandMetricsTest.readTitles|getText").calls);
+        assertEquals(1, totals.get("CommandMetricsTest.countsCommandsPerHelperWithinAScope|getTitle").calls);
+        assertEquals(1, totals.get("CommandMetricsTest.countsCommandsPerHelperWithinAScope|findElement").errors);
+        assertFalse(totals.containsKey("CommandMetricsTest.countsCommandsPerHelperWithinAScope|manage"));
+
+        metrics.export();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("helper,command,calls,errors,totalMicros,maxMicros", lines.get(0));
+        assertEquals(6, lines.size());
+    }
+
+    @Test
+    public void commandsAreNamedByTheirDeclaringInterface() throws NoSuchMethodException {
+        CommandMetrics metrics = new CommandMetrics(folder.getRoot().toPath().resolve("metrics.csv"));
+        WebDriver driver = new EventFiringDecorator<>(metrics).decorate(fakeDriver());
+
+        try (CommandMetrics.Scope scope = metrics.begin("Task 10")) {
+            driver.get("http://localhost/");
+            driver.switchTo().window("tab-2");
+            driver.manage().window();
+            assertEquals(2, scope.calls());
+        }
+
+        Map<String, CommandMetrics.Stat> totals = metrics.totals();
+        String helper = "CommandMetricsTest.commandsAreNamedByTheirDeclaringInterface|";
+        assertEquals("navigation", 1, totals.get(helper + "get").calls);
+        assertEquals("switching tabs is a round trip", 1, totals.get(helper + "TargetLocator.window").calls);
+        assertFalse("the window accessor is local", totals.containsKey(helper + "Options.window"));
+        assertEquals(2, totals.size());
+        assertEquals("reading logs is not a navigation",
+            "Logs.get", CommandMetrics.command(Logs.class.getMethod("get", String.class)));
+        assertEquals("get", CommandMetrics.command(WebDriver.class.getMethod("get", String.class)));
+    }
+
+    private static List<String> readTitles(WebDriver driver) {
+        List<String> titles = new ArrayList<>();
+        for (WebElement element : driver.findElements(By.cssSelector("h2"))) {
+            titles.add(element.getText());
+        }
+        return titles;
+    }
+
+    private static WebDriver fakeDriver() {
+        List<WebElement> elements = Arrays.asList(fakeElement("First"), fakeElement("Second"));
+        return (WebDriver) Proxy.newProxyInstance(CommandMetricsTest.class.getClassLoader(),
+            new Class<?>[] {WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "findElements":
+                        return elements;
+                    case "findElement":
+                        throw new NoSuchElementException("missing");
+                    case "getTitle":
+                        return "Results";
+                    case "executeScript":
+                        return 1L;
+                    case "switchTo":
+                        return proxy(WebDriver.TargetLocator.class, name -> proxy);
+                    case "manage":
+                        return proxy(WebDriver.Options.class, name -> proxy(WebDriver.Window.class, ignored -> null));
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "fake driver";
+                    default:
+                        return null;
+                }
+            });
+    }
+
+    /** Proxy of {@code type} answering each method with {@code answer} of its name. */
+    private static <T> T proxy(Class<T> type, Function<String, Object> answer) {
+        return type.cast(Proxy.newProxyInstance(CommandMetricsTest.class.getClassLoader(), new Class<?>[] {type},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return type.getSimpleName();
+                    default:
+                        return answer.apply(method.getName());
+                }
+            }));
+    }
+
+    private static WebElement fakeElement(String text) {
+        return (WebElement) Proxy.newProxyInstance(CommandMetricsTest.class.getClassLoader(),
+            new Class<?>[] {WebElement.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getText":
+                        return text;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            });
+    }
+}
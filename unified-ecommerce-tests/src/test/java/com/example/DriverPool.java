@@ -0,0 +1,282 @@
+package com.example;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool of warm WebDriver sessions: {@link #shared()} for the test suite and {@link #monitors()}
+ * for unattended price monitoring. Borrowed sessions are reset (cookies, storage, extra windows) before they are handed
+ * to the next borrower, and the number of live browsers is capped by the pool size.
+ */
+public final class DriverPool {
+
+    private static final Logger logger = Logger.getLogger(DriverPool.class.getName());
+
+    // Parallel task runs need one session per concurrently running task
+    private static final int DEFAULT_MAX_SESSIONS =
+        Integer.getInteger("driver.pool.size", Math.max(2, TaskRunner.parallelism()));
+    private static final Duration DEFAULT_BORROW_TIMEOUT =
+        Duration.ofSeconds(Long.getLong("driver.pool.borrowTimeoutSeconds", 120));
+
+    private static volatile DriverPool shared;
+    private static volatile DriverPool monitors;
+    private static boolean driverBinaryReady;
+
+    private final int maxSessions;
+    private final Supplier<WebDriver> factory;
+    private final Semaphore permits;
+    private final Deque<WebDriver> idle = new ArrayDeque<>();
+    private final Set<WebDriver> live = ConcurrentHashMap.newKeySet();
+    private final Set<WebDriver> borrowed = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public DriverPool(int maxSessions, Supplier<WebDriver> factory) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("Pool needs at least one session, got " + maxSessions);
+        }
+        this.maxSessions = maxSessions;
+        this.factory = factory;
+        this.permits = new Semaphore(maxSessions, true);
+    }
+
+    /**
+     * Process-wide pool of Chrome sessions measured by {@link CommandMetrics}, closed by a shutdown hook when the JVM exits.
+     */
+    public static DriverPool shared() {
+        DriverPool pool = shared;
+        if (pool == null) {
+            synchronized (DriverPool.class) {
+                pool = shared;
+                if (pool == null) {
+                    pool = new DriverPool(DEFAULT_MAX_SESSIONS, () -> CommandMetrics.decorate(newChromeDriver()));
+                    Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "driver-pool-shutdown"));
+                    shared = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Process-wide pool for {@link PriceMonitor} and {@link ShardedMonitor}. Monitoring runs
+     * unattended, so its sessions are headless unless {@code -Dmonitor.browser.headless=false};
+     * {@code -Dmonitor.pool.size} caps it (default as {@code driver.pool.size}).
+     */
+    public static DriverPool monitors() {
+        DriverPool pool = monitors;
+        if (pool == null) {
+            synchronized (DriverPool.class) {
+                pool = monitors;
+                if (pool == null) {
+                    boolean headless = Boolean.parseBoolean(System.getProperty("monitor.browser.headless", "true"));
+                    pool = new DriverPool(Integer.getInteger("monitor.pool.size", DEFAULT_MAX_SESSIONS),
+                        () -> CommandMetrics.decorate(newChromeDriver(headless)));
+                    Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "monitor-pool-shutdown"));
+                    monitors = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Creates a Chrome session with the options used across the suite, headless with
+     * {@code -Dbrowser.headless=true}.
+     */
+    public static WebDriver newChromeDriver() {
+        return newChromeDriver(Boolean.getBoolean("browser.headless"));
+    }
+
+    static WebDriver newChromeDriver(boolean headless) {
+        synchronized (DriverPool.class) {
+            if (!driverBinaryReady) {
+                WebDriverManager.chromedriver().setup();
+                driverBinaryReady = true;
+            }
+        }
+        ChromeOptions options = new ChromeOptions();
+        if (headless) {
+            options.addArguments("--headless=new", "--disable-gpu");
+        }
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--disable-blink-features=AutomationControlled");
+        options.addArguments("--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
+        options.addArguments("--disable-extensions");
+        options.addArguments("--disable-plugins");
+        options.addArguments("--window-size=1920,1080");
+        if (Boolean.parseBoolean(System.getProperty("network.report", "true"))) {
+            // Network events only, read back by ResourceBlocker.report
+            LoggingPreferences logging = new LoggingPreferences();
+            logging.enable(LogType.PERFORMANCE, Level.ALL);
+            options.setCapability("goog:loggingPrefs", logging);
+            options.setExperimentalOption("perfLoggingPrefs", Map.of("enableNetwork", true, "enablePage", false));
+        }
+        return new ChromeDriver(options);
+    }
+
+    public WebDriver borrow() {
+        return borrow(DEFAULT_BORROW_TIMEOUT);
+    }
+
+    /**
+     * Hands out an idle session, or starts a new one while the pool is below its cap.
+     * Blocks up to {@code timeout} when every session is already borrowed.
+     */
+    public WebDriver borrow(Duration timeout) {
+        ensureOpen();
+        try {
+            if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("No browser session became available within " + timeout
+                    + " (pool size " + maxSessions + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser session", e);
+        }
+
+        WebDriver driver;
+        synchronized (idle) {
+            driver = idle.pollFirst();
+        }
+        if (driver != null) {
+            logger.fine("Reusing pooled browser session");
+            borrowed.add(driver);
+            return driver;
+        }
+
+        try {
+            long started = System.nanoTime();
+            driver = factory.get();
+            live.add(driver);
+            borrowed.add(driver);
+            logger.info("Started pooled browser session in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms ("
+                + live.size() + "/" + maxSessions + " live)");
+            return driver;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a session to the pool. Sessions that cannot be reset are quit instead.
+     */
+    public void release(WebDriver driver) {
+        if (driver == null || !borrowed.remove(driver)) {
+            return;
+        }
+        try {
+            if (!closed && reset(driver)) {
+                synchronized (idle) {
+                    idle.addFirst(driver);
+                }
+            } else {
+                discard(driver);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Quits a broken session and frees its slot without returning it to the pool.
+     */
+    public void invalidate(WebDriver driver) {
+        if (driver == null || !borrowed.remove(driver)) {
+            return;
+        }
+        discard(driver);
+        permits.release();
+    }
+
+    public int liveSessions() {
+        return live.size();
+    }
+
+    public int maxSessions() {
+        return maxSessions;
+    }
+
+    public void close() {
+        closed = true;
+        synchronized (idle) {
+            idle.clear();
+        }
+        for (WebDriver driver : List.copyOf(live)) {
+            discard(driver);
+        }
+    }
+
+    private boolean reset(WebDriver driver) {
+        try {
+            String primary = null;
+            for (String handle : driver.getWindowHandles()) {
+                if (primary == null) {
+                    primary = handle;
+                } else {
+                    driver.switchTo().window(handle);
+                    driver.close();
+                }
+            }
+            if (primary == null) {
+                return false;
+            }
+            driver.switchTo().window(primary);
+
+            if (driver instanceof JavascriptExecutor) {
+                ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            }
+            driver.manage().deleteAllCookies();
+            if (driver instanceof HasCdp) {
+                // deleteAllCookies only covers the current domain
+                ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+            }
+            driver.get("about:blank");
+            ResourceBlocker.discardLog(driver);
+            PagePerformance.forget(driver);
+            return true;
+        } catch (Exception e) {
+            logger.warning("Could not reset browser session, discarding it: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(WebDriver driver) {
+        live.remove(driver);
+        PagePerformance.forget(driver);
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            logger.fine("Browser session already gone: " + e.getMessage());
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Driver pool is closed");
+        }
+    }
+}
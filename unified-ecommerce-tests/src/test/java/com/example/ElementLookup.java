@@ -0,0 +1,117 @@
+package com.example;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Multi-selector element lookup that checks every candidate selector in a single
+ * in-browser evaluation per poll, under one deadline shared by the whole chain.
+ * The first visible and enabled match wins, in selector priority order.
+ */
+public final class ElementLookup {
+
+    private static final Logger logger = Logger.getLogger(ElementLookup.class.getName());
+
+    private static final String FIND_FIRST_CLICKABLE =
+        "var sels=arguments[0];"
+        + "function usable(el){"
+        + "if(el.disabled)return false;"
+        + "var r=el.getClientRects();if(!r.length)return false;"
+        + "var st=window.getComputedStyle(el);"
+        + "return st.visibility!=='hidden'&&st.display!=='none'&&st.opacity!=='0';}"
+        + "for(var i=0;i<sels.length;i++){var list;"
+        + "try{list=document.querySelectorAll(sels[i]);}catch(e){continue;}"
+        + "for(var j=0;j<list.length;j++){if(usable(list[j]))return [i,list[j]];}}"
+        + "return null;";
+
+    private ElementLookup() {
+    }
+
+    /**
+     * Outcome of a lookup: the matched element (or {@code null}), the selector that won and the time taken.
+     */
+    public static final class Result {
+        private final WebElement element;
+        private final String selector;
+        private final Duration elapsed;
+
+        Result(WebElement element, String selector, Duration elapsed) {
+            this.element = element;
+            this.selector = selector;
+            this.elapsed = elapsed;
+        }
+
+        public boolean found() {
+            return element != null;
+        }
+
+        public WebElement element() {
+            return element;
+        }
+
+        public String selector() {
+            return selector;
+        }
+
+        public Duration elapsed() {
+            return elapsed;
+        }
+    }
+
+    public static Result firstClickable(WebDriver driver, Duration deadline, String... selectors) {
+        return firstClickable(driver, deadline, Arrays.asList(selectors));
+    }
+
+    /**
+     * Polls until one of the selectors matches a visible, enabled element or the deadline passes.
+     */
+    public static Result firstClickable(WebDriver driver, Duration deadline, List<String> selectors) {
+        long started = System.nanoTime();
+        long deadlineNanos = started + deadline.toNanos();
+        long pollMillis = PageReadiness.MIN_POLL.toMillis();
+        while (true) {
+            Result result = probe(driver, selectors, started);
+            if (result != null) {
+                logger.fine("Found element with selector '" + result.selector() + "' in "
+                    + result.elapsed().toMillis() + " ms");
+                return result;
+            }
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMillis <= 0) {
+                Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+                logger.fine("No selector matched within " + elapsed.toMillis() + " ms: " + selectors);
+                return new Result(null, null, elapsed);
+            }
+            try {
+                Thread.sleep(Math.min(pollMillis, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Result(null, null, Duration.ofNanos(System.nanoTime() - started));
+            }
+            pollMillis = Math.min(PageReadiness.MAX_POLL.toMillis(), (long) (pollMillis * 1.6));
+        }
+    }
+
+    private static Result probe(WebDriver driver, List<String> selectors, long startedNanos) {
+        try {
+            Object raw = ((JavascriptExecutor) driver).executeScript(FIND_FIRST_CLICKABLE, selectors);
+            if (raw instanceof List && ((List<?>) raw).size() == 2) {
+                List<?> match = (List<?>) raw;
+                int index = ((Number) match.get(0)).intValue();
+                return new Result((WebElement) match.get(1), selectors.get(index),
+                    Duration.ofNanos(System.nanoTime() - startedNanos));
+            }
+        } catch (Exception e) {
+            // Page is usually mid-navigation; try again on the next poll
+            logger.fine("Selector probe failed: " + e.getMessage());
+        }
+        return null;
+    }
+}
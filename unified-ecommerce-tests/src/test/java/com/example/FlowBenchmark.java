@@ -0,0 +1,326 @@
+package com.example;
+
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Macro-benchmark of the suite's task flows, run with {@code mvn -Pflow-benchmark test-compile exec:exec}.
+ * <p>
+ * Each selected flow runs through JUnit as a single suite method, first for the warmup runs and
+ * then for the measured runs. Every measured run records its wall time, the WebDriver round trips
+ * counted by {@link CommandMetrics}, the CPU time used by the browser processes (every descendant
+ * of this JVM: chromedriver and Chrome) and their peak combined resident memory, sampled from
+ * {@code /proc} where available. Per flow the medians (and the wall-time p90 and peak memory) are
+ * written to a CSV and compared with a stored baseline. The run fails when any metric exceeds its
+ * baseline by more than the allowed percentage, when a flow has no baseline, or when a flow fails.
+ */
+public final class FlowBenchmark {
+
+    private static final Logger logger = Logger.getLogger(FlowBenchmark.class.getName());
+
+    /** Flow name to suite method, in run order. */
+    static final Map<String, String> FLOWS = new LinkedHashMap<>();
+
+    static {
+        FLOWS.put("search-select", "test1ProductSelection");
+        FLOWS.put("cart", "test2CartAutomation");
+        FLOWS.put("filter-search", "test6ProductSearchWithFilters");
+        FLOWS.put("checkout", "test5CompleteEcommerceFlow");
+        FLOWS.put("price-check", "test4PriceMonitor");
+    }
+
+    static final String[] COLUMNS = {
+        "runs", "failures", "wallMedianMillis", "wallP90Millis", "roundTrips", "browserCpuMillis", "browserRssMb"
+    };
+
+    /** Metrics compared with the baseline; the others are informational. */
+    static final String[] COMPARED = {"wallMedianMillis", "roundTrips", "browserCpuMillis", "browserRssMb"};
+
+    private static final long RSS_SAMPLE_MILLIS = 100;
+
+    private FlowBenchmark() {
+    }
+
+    /**
+     * Configured by {@code -Dflow.include} (regex over flow names, default all), {@code -Dflow.warmup}
+     * (default 2), {@code -Dflow.repeat} (default 10), {@code -Dflow.baseline} (default
+     * {@code flow-baseline.csv}), {@code -Dflow.regressionPercent} (default 10),
+     * {@code -Dflow.updateBaseline} (default false) and {@code -Dflow.results} (default
+     * {@code target/flow-benchmark.csv}).
+     */
+    public static void main(String[] args) {
+        if (System.getProperty("tasks.ignoreWindows") == null) {
+            System.setProperty("tasks.ignoreWindows", "true");
+        }
+        if (!Storefront.isOverridden()) {
+            logger.warning("Benchmarking against the live storefront; use -Dstorefront=local for stable numbers");
+        }
+        Pattern include = Pattern.compile(System.getProperty("flow.include", ".*"));
+        int warmup = Integer.getInteger("flow.warmup", 2);
+        int repeat = Math.max(1, Integer.getInteger("flow.repeat", 10));
+        Path baselineFile = Paths.get(System.getProperty("flow.baseline", "flow-baseline.csv"));
+        double regressionPercent = Double.parseDouble(System.getProperty("flow.regressionPercent", "10"));
+
+        Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, String> flow : FLOWS.entrySet()) {
+            if (include.matcher(flow.getKey()).matches()) {
+                results.put(flow.getKey(), measure(flow.getKey(), flow.getValue(), warmup, repeat));
+            }
+        }
+        write(Paths.get(System.getProperty("flow.results", "target/flow-benchmark.csv")), results);
+
+        boolean failed = false;
+        for (Map.Entry<String, Map<String, Double>> flow : results.entrySet()) {
+            double failures = flow.getValue().get("failures");
+            if (failures > 0) {
+                logger.severe(flow.getKey() + " failed in " + (long) failures + " of " + repeat + " runs");
+                failed = true;
+            }
+        }
+        if (Boolean.getBoolean("flow.updateBaseline")) {
+            write(baselineFile, results);
+            logger.info("Baseline updated: " + baselineFile.toAbsolutePath());
+        } else {
+            Map<String, Map<String, Double>> baseline = read(baselineFile);
+            if (baseline.isEmpty() && !results.isEmpty()) {
+                logger.severe("No baseline at " + baselineFile.toAbsolutePath() + "; run with -Dflow.updateBaseline=true to record one");
+            }
+            List<String> regressions = compare(baseline, results, regressionPercent);
+            for (String regression : regressions) {
+                logger.severe("Regression: " + regression);
+            }
+            failed |= !regressions.isEmpty();
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static Map<String, Double> measure(String flow, String method, int warmup, int repeat) {
+        for (int i = 0; i < warmup; i++) {
+            logger.info("Warmup " + (i + 1) + "/" + warmup + " of " + flow);
+            run(method);
+        }
+        long[] wall = new long[repeat];
+        long[] roundTrips = new long[repeat];
+        long[] cpu = new long[repeat];
+        long peakRssKb = 0;
+        int failures = 0;
+        for (int i = 0; i < repeat; i++) {
+            long callsBefore = commandCalls();
+            Map<Long, Long> cpuBefore = browserCpuNanos();
+            AtomicLong peak = new AtomicLong();
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "flow-benchmark-rss");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sampler.scheduleAtFixedRate(() -> peak.accumulateAndGet(browserRssKb(), Math::max),
+                0, RSS_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+
+            long started = System.nanoTime();
+            boolean passed = run(method);
+            wall[i] = System.nanoTime() - started;
+
+            sampler.shutdownNow();
+            peak.accumulateAndGet(browserRssKb(), Math::max);
+            roundTrips[i] = commandCalls() - callsBefore;
+            cpu[i] = cpuSince(cpuBefore, browserCpuNanos());
+            peakRssKb = Math.max(peakRssKb, peak.get());
+            if (!passed) {
+                failures++;
+            }
+            logger.info(flow + " run " + (i + 1) + "/" + repeat + ": " + TimeUnit.NANOSECONDS.toMillis(wall[i]) + " ms, "
+                + roundTrips[i] + " round trips, " + TimeUnit.NANOSECONDS.toMillis(cpu[i]) + " ms browser CPU"
+                + (passed ? "" : " (failed)"));
+        }
+        return summarize(repeat, failures, wall, roundTrips, cpu, peakRssKb);
+    }
+
+    /**
+     * Per-flow row: medians of wall time, round trips and browser CPU, wall-time p90 and the peak
+     * browser memory.
+     */
+    static Map<String, Double> summarize(int runs, int failures, long[] wallNanos, long[] roundTrips,
+                                         long[] cpuNanos, long peakRssKb) {
+        long[] wall = wallNanos.clone();
+        long[] trips = roundTrips.clone();
+        long[] cpu = cpuNanos.clone();
+        Arrays.sort(wall);
+        Arrays.sort(trips);
+        Arrays.sort(cpu);
+        Map<String, Double> row = new LinkedHashMap<>();
+        row.put("runs", (double) runs);
+        row.put("failures", (double) failures);
+        row.put("wallMedianMillis", StepTracer.percentile(wall, 50) / 1e6);
+        row.put("wallP90Millis", StepTracer.percentile(wall, 90) / 1e6);
+        row.put("roundTrips", (double) StepTracer.percentile(trips, 50));
+        row.put("browserCpuMillis", StepTracer.percentile(cpu, 50) / 1e6);
+        row.put("browserRssMb", peakRssKb > 0 ? peakRssKb / 1024.0 : Double.NaN);
+        return row;
+    }
+
+    /**
+     * Every compared metric of a flow that exceeds its baseline by more than {@code percent},
+     * plus every flow the baseline does not cover, so a missing baseline fails the gate instead
+     * of passing it. Metrics missing or zero in the baseline are not compared.
+     */
+    static List<String> compare(Map<String, Map<String, Double>> baseline, Map<String, Map<String, Double>> current,
+                                double percent) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Double>> flow : current.entrySet()) {
+            Map<String, Double> base = baseline.get(flow.getKey());
+            if (base == null) {
+                regressions.add(flow.getKey() + " has no baseline; record one with -Dflow.updateBaseline=true");
+                continue;
+            }
+            for (String metric : COMPARED) {
+                Double before = base.get(metric);
+                Double now = flow.getValue().get(metric);
+                if (before == null || now == null || before.isNaN() || now.isNaN() || before <= 0) {
+                    continue;
+                }
+                double change = (now - before) / before * 100;
+                if (change > percent) {
+                    regressions.add(String.format(Locale.ROOT, "%s %s %.1f vs baseline %.1f (+%.1f%%, limit %.1f%%)",
+                        flow.getKey(), metric, now, before, change, percent));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    static void write(Path file, Map<String, Map<String, Double>> results) {
+        try {
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write("flow," + String.join(",", COLUMNS) + "\n");
+                for (Map.Entry<String, Map<String, Double>> flow : results.entrySet()) {
+                    StringBuilder line = new StringBuilder(flow.getKey());
+                    for (String column : COLUMNS) {
+                        Double value = flow.getValue().get(column);
+                        line.append(',').append(value == null || value.isNaN() ? "" : String.format(Locale.ROOT, "%.1f", value));
+                    }
+                    out.write(line.append('\n').toString());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warning("Could not write flow benchmark results to " + file + ": " + e.getMessage());
+        }
+    }
+
+    static Map<String, Map<String, Double>> read(Path file) {
+        Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return results;
+        } catch (IOException e) {
+            logger.warning("Could not read flow benchmark baseline " + file + ": " + e.getMessage());
+            return results;
+        }
+        if (lines.isEmpty()) {
+            return results;
+        }
+        List<String> header = StepTracer.parseCsvLine(lines.get(0));
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> fields = StepTracer.parseCsvLine(line);
+            if (fields.size() != header.size()) {
+                continue;
+            }
+            Map<String, Double> row = new LinkedHashMap<>();
+            for (int i = 1; i < fields.size(); i++) {
+                row.put(header.get(i), fields.get(i).isEmpty() ? Double.NaN : Double.parseDouble(fields.get(i)));
+            }
+            results.put(fields.get(0), row);
+        }
+        return results;
+    }
+
+    private static boolean run(String method) {
+        Result result = new JUnitCore().run(Request.method(EcommerceTestSuite.class, method));
+        for (Failure failure : result.getFailures()) {
+            logger.warning(method + " failed: " + failure.getMessage());
+        }
+        return result.wasSuccessful() && result.getIgnoreCount() == 0 && result.getAssumptionFailureCount() == 0;
+    }
+
+    private static long commandCalls() {
+        long calls = 0;
+        for (CommandMetrics.Stat stat : CommandMetrics.shared().totals().values()) {
+            calls += stat.calls;
+        }
+        return calls;
+    }
+
+    /** CPU time so far of every browser process, by pid. */
+    private static Map<Long, Long> browserCpuNanos() {
+        Map<Long, Long> cpu = new HashMap<>();
+        ProcessHandle.current().descendants().forEach(process ->
+            process.info().totalCpuDuration().ifPresent(duration -> cpu.put(process.pid(), duration.toNanos())));
+        return cpu;
+    }
+
+    /**
+     * CPU used between two snapshots; processes started in between count from zero, processes
+     * that exited are lost.
+     */
+    static long cpuSince(Map<Long, Long> before, Map<Long, Long> after) {
+        long used = 0;
+        for (Map.Entry<Long, Long> process : after.entrySet()) {
+            used += Math.max(0, process.getValue() - before.getOrDefault(process.getKey(), 0L));
+        }
+        return used;
+    }
+
+    /** Combined resident memory of the browser processes in KiB, or 0 where {@code /proc} is unavailable. */
+    private static long browserRssKb() {
+        return ProcessHandle.current().descendants().mapToLong(process -> {
+            try {
+                return Math.max(0, rssKb(Files.readString(Paths.get("/proc", Long.toString(process.pid()), "status"))));
+            } catch (IOException | RuntimeException e) {
+                return 0;
+            }
+        }).sum();
+    }
+
+    /**
+     * {@code VmRSS} of a {@code /proc/<pid>/status} text in KiB, or -1 if absent.
+     */
+    static long rssKb(String status) {
+        for (String line : status.split("\n")) {
+            if (line.startsWith("VmRSS:")) {
+                String[] parts = line.substring("VmRSS:".length()).trim().split("\\s+");
+                return Long.parseLong(parts[0]);
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Flow summaries, the baseline file and regression detection of the macro-benchmark
+ */
+public class FlowBenchmarkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void summarizesRunsWithMediansAndPeakMemory() {
+        Map<String, Double> row = FlowBenchmark.summarize(5, 1,
+            new long[] {500_000_000L, 100_000_000L, 300_000_000L, 200_000_000L, 400_000_000L},
+            new long[] {40, 42, 41, 40, 90},
+            new long[] {50_000_000L, 70_000_000L, 60_000_000L, 60_000_000L, 80_000_000L},
+            512 * 1024);
+
+        assertEquals(5, row.get("runs"), 0.0);
+        assertEquals(1, row.get("failures"), 0.0);
+        assertEquals(300.0, row.get("wallMedianMillis"), 0.0);
+        assertEquals(500.0, row.get("wallP90Millis"), 0.0);
+        assertEquals(41.0, row.get("roundTrips"), 0.0);
+        assertEquals(60.0, row.get("browserCpuMillis"), 0.0);
+        assertEquals(512.0, row.get("browserRssMb"), 0.0);
+        assertTrue(Double.isNaN(FlowBenchmark.summarize(1, 0, new long[] {1}, new long[] {1}, new long[] {1}, 0)
+            .get("browserRssMb")));
+    }
+
+    @Test
+    public void baselineRoundTripsAndFlagsOnlyRegressionsPastTheLimit() throws IOException {
+        Map<String, Map<String, Double>> baseline = new LinkedHashMap<>();
+        baseline.put("checkout", FlowBenchmark.summarize(3, 0, new long[] {1_000_000_000L, 1_000_000_000L, 1_000_000_000L},
+            new long[] {100, 100, 100}, new long[] {0, 0, 0}, 0));
+        baseline.put("cart", FlowBenchmark.summarize(3, 0, new long[] {500_000_000L, 500_000_000L, 500_000_000L},
+            new long[] {50, 50, 50}, new long[] {10_000_000L, 10_000_000L, 10_000_000L}, 1024));
+        Path file = folder.newFolder().toPath().resolve("flow-baseline.csv");
+        FlowBenchmark.write(file, baseline);
+        Map<String, Map<String, Double>> stored = FlowBenchmark.read(file);
+        assertEquals(baseline.keySet(), stored.keySet());
+        assertEquals(1000.0, stored.get("checkout").get("wallMedianMillis"), 0.0);
+        assertTrue(Double.isNaN(stored.get("checkout").get("browserRssMb")));
+
+        Map<String, Map<String, Double>> current = new LinkedHashMap<>();
+        current.put("checkout", FlowBenchmark.summarize(3, 0, new long[] {1_080_000_000L, 1_080_000_000L, 1_080_000_000L},
+            new long[] {130, 130, 130}, new long[] {5_000_000L, 5_000_000L, 5_000_000L}, 0));
+        current.put("cart", FlowBenchmark.summarize(3, 0, new long[] {400_000_000L, 400_000_000L, 400_000_000L},
+            new long[] {50, 50, 50}, new long[] {10_000_000L, 10_000_000L, 10_000_000L}, 1024));
+        current.put("price-check", FlowBenchmark.summarize(1, 0, new long[] {1}, new long[] {1}, new long[] {1}, 0));
+
+        List<String> regressions = FlowBenchmark.compare(stored, current, 10);
+        assertEquals(2, regressions.size());
+        assertTrue(regressions.get(0), regressions.get(0).startsWith("checkout roundTrips 130.0 vs baseline 100.0 (+30.0%"));
+        assertTrue(regressions.get(1), regressions.get(1).startsWith("price-check has no baseline"));
+        assertEquals("a missing baseline file fails every flow",
+            3, FlowBenchmark.compare(FlowBenchmark.read(file.resolveSibling("missing.csv")), current, 10).size());
+    }
+
+    @Test
+    public void readsBrowserResourcesFromProcfsAndPidSnapshots() {
+        assertEquals(183_420, FlowBenchmark.rssKb("Name:\tchrome\nVmPeak:\t  900000 kB\nVmRSS:\t  183420 kB\nThreads:\t12\n"));
+        assertEquals(-1, FlowBenchmark.rssKb("Name:\tkthreadd\n"));
+        assertEquals(70, FlowBenchmark.cpuSince(Map.of(1L, 100L, 2L, 50L), Map.of(1L, 150L, 3L, 20L)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring over integer node ids with weighted virtual nodes.
+ * Removing a node or lowering its weight only moves the keys that node owned (or a share of
+ * them); every other key keeps its node.
+ */
+final class HashRing {
+
+    /** Virtual nodes of a node with weight 1. */
+    static final int VIRTUAL_NODES = 160;
+
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+    private final Map<Integer, Double> weights;
+
+    HashRing(Map<Integer, Double> weights) {
+        this.weights = Collections.unmodifiableMap(new TreeMap<>(weights));
+        for (Map.Entry<Integer, Double> node : this.weights.entrySet()) {
+            int replicas = Math.max(1, (int) Math.round(VIRTUAL_NODES * node.getValue()));
+            for (int replica = 0; replica < replicas; replica++) {
+                ring.put(hash("node-" + node.getKey() + "#" + replica), node.getKey());
+            }
+        }
+    }
+
+    /**
+     * Node owning the key, or -1 if the ring is empty.
+     */
+    int nodeFor(String key) {
+        return nodeForHash(hash(key));
+    }
+
+    /**
+     * Node owning a key already hashed with {@link #hash(String)}, or -1 if the ring is empty.
+     */
+    int nodeForHash(long keyHash) {
+        if (ring.isEmpty()) {
+            return -1;
+        }
+        Map.Entry<Long, Integer> owner = ring.ceilingEntry(keyHash);
+        return owner == null ? ring.firstEntry().getValue() : owner.getValue();
+    }
+
+    Map<Integer, Double> weights() {
+        return weights;
+    }
+
+    boolean isEmpty() {
+        return ring.isEmpty();
+    }
+
+    /**
+     * FNV-1a followed by a 64-bit finalizer, so similar keys spread over the whole ring.
+     */
+    static long hash(String key) {
+        long h = PageCache.hash(key);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,295 @@
+package com.example;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.json.Json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Browserless price lookup: fetches the product page with the JDK {@link HttpClient}
+ * (HTTP/2, gzip/deflate, one pooled client with a cookie jar) and extracts the price in the JVM
+ * with jsoup, using the same CSS selector chain as the Selenium path and falling back to
+ * schema.org structured data (JSON-LD offers, {@code itemprop="price"}).
+ * A failed {@link Result} tells the caller to take the browser path instead.
+ */
+public final class HttpPriceFetcher {
+
+    private static final Logger logger = Logger.getLogger(HttpPriceFetcher.class.getName());
+
+    static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36"
+        + " (KHTML, like Gecko) Chrome/119.0.0.0 Safari/537.36";
+
+    private static volatile HttpPriceFetcher shared;
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final PageCache cache;
+
+    HttpPriceFetcher(Duration timeout, PageCache cache) {
+        this.timeout = timeout;
+        this.cache = cache;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .cookieHandler(new CookieManager())
+            .connectTimeout(timeout)
+            .build();
+    }
+
+    /**
+     * Process-wide fetcher; {@code -Dmonitor.http.timeoutSeconds} (default 15) bounds each request
+     * and {@code -Dmonitor.pageCache.size} (default 1024) bounds the cached extracts.
+     */
+    public static HttpPriceFetcher shared() {
+        HttpPriceFetcher fetcher = shared;
+        if (fetcher == null) {
+            synchronized (HttpPriceFetcher.class) {
+                fetcher = shared;
+                if (fetcher == null) {
+                    fetcher = new HttpPriceFetcher(Duration.ofSeconds(Long.getLong("monitor.http.timeoutSeconds", 15L)),
+                        new PageCache(Integer.getInteger("monitor.pageCache.size", 1024)));
+                    shared = fetcher;
+                }
+            }
+        }
+        return fetcher;
+    }
+
+    /**
+     * Fetches and extracts the price, revalidating against the cached extract for the URL.
+     * The result is {@link Result#unchanged() unchanged} when the server answers 304, when the body
+     * is byte-identical (parsing skipped) or when the price region hashes the same as last time.
+     */
+    public Result fetch(String url, SelectorRegistry.Chain selectors) {
+        PageCache.Entry cached = cache.get(url);
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+            .timeout(timeout)
+            .header("User-Agent", USER_AGENT)
+            .header("Accept", "text/html,application/xhtml+xml")
+            .header("Accept-Language", "en-IN,en;q=0.9")
+            .header("Accept-Encoding", "gzip, deflate")
+            .GET();
+        if (cached != null && cached.etag != null) {
+            request.header("If-None-Match", cached.etag);
+        }
+        if (cached != null && cached.lastModified != null) {
+            request.header("If-Modified-Since", cached.lastModified);
+        }
+        try {
+            HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() == 304 && cached != null) {
+                response.body().close();
+                logger.fine("Not modified: " + url);
+                return cached.result.asUnchanged();
+            }
+            if (response.statusCode() != 200) {
+                response.body().close();
+                return Result.failed("HTTP " + response.statusCode());
+            }
+            byte[] bytes;
+            try (InputStream body = decode(response)) {
+                bytes = body.readAllBytes();
+            }
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            long bodyHash = PageCache.hash(bytes);
+            if (cached != null && cached.bodyHash == bodyHash) {
+                cache.put(url, new PageCache.Entry(etag, lastModified, bodyHash, cached.regionHash, cached.result));
+                logger.fine("Identical body, skipped parsing: " + url);
+                return cached.result.asUnchanged();
+            }
+
+            Document page = Jsoup.parse(new ByteArrayInputStream(bytes), null, response.uri().toString());
+            Result result = extract(page, selectors);
+            if (!result.found()) {
+                return result;
+            }
+            cache.put(url, new PageCache.Entry(etag, lastModified, bodyHash, result.regionHash, result));
+            if (cached != null && cached.regionHash == result.regionHash) {
+                logger.fine("Price region unchanged: " + url);
+                return result.asUnchanged();
+            }
+            return result;
+        } catch (IOException e) {
+            return Result.failed(e.getClass().getSimpleName() + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.failed("interrupted");
+        }
+    }
+
+    /**
+     * Runs the selector chain over the parsed page, then the structured-data fallbacks.
+     */
+    static Result extract(Document page, SelectorRegistry.Chain selectors) {
+        if (page.selectFirst("form[action*=validateCaptcha], #captchacharacters") != null) {
+            return Result.failed("bot check page");
+        }
+        PriceParser.ParsedPrice parsed = new PriceParser.ParsedPrice();
+        for (String selector : selectors.ordered()) {
+            for (Element element : page.select(selector)) {
+                if (PriceParser.parse(element.text(), parsed) && parsed.amount() > 0) {
+                    selectors.hit(selector);
+                    return Result.found(parsed.amount(), parsed.currency(), selector, PageCache.hash(element.outerHtml()));
+                }
+            }
+            selectors.miss(selector);
+        }
+
+        for (Element script : page.select("script[type=application/ld+json]")) {
+            try {
+                Result offer = offerPrice(new Json().toType(script.data(), Object.class));
+                if (offer != null) {
+                    return offer.withRegionHash(PageCache.hash(script.data()));
+                }
+            } catch (RuntimeException e) {
+                logger.fine("Ignoring unparseable JSON-LD block: " + e.getMessage());
+            }
+        }
+
+        Element itemprop = page.selectFirst("[itemprop=price]");
+        if (itemprop != null) {
+            String content = itemprop.hasAttr("content") ? itemprop.attr("content") : itemprop.text();
+            double amount = PriceParser.amount(content);
+            if (amount > 0) {
+                Element currency = page.selectFirst("[itemprop=priceCurrency]");
+                return Result.found(amount, currency == null ? PriceParser.Currency.UNKNOWN
+                    : currency(currency.attr("content")), "itemprop=price", PageCache.hash(itemprop.outerHtml()));
+            }
+        }
+        return Result.failed("no price on page");
+    }
+
+    /**
+     * First schema.org offer price anywhere in a JSON-LD value, or {@code null}.
+     */
+    private static Result offerPrice(Object node) {
+        if (node instanceof List) {
+            for (Object item : (List<?>) node) {
+                Result found = offerPrice(item);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (node instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) node;
+            Object price = map.containsKey("price") ? map.get("price") : map.get("lowPrice");
+            if (price != null) {
+                double amount = price instanceof Number ? ((Number) price).doubleValue() : PriceParser.amount(price.toString());
+                if (amount > 0) {
+                    Object currency = map.get("priceCurrency");
+                    return Result.found(amount, currency == null ? PriceParser.Currency.UNKNOWN
+                        : currency(currency.toString()), "json-ld", 0);
+                }
+            }
+            for (Object value : map.values()) {
+                Result found = offerPrice(value);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static PriceParser.Currency currency(String code) {
+        try {
+            return PriceParser.Currency.valueOf(code.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return PriceParser.Currency.UNKNOWN;
+        }
+    }
+
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("").toLowerCase(Locale.ROOT);
+        if (encoding.contains("gzip")) {
+            return new GZIPInputStream(response.body());
+        }
+        if (encoding.contains("deflate")) {
+            return new InflaterInputStream(response.body());
+        }
+        return response.body();
+    }
+
+    /**
+     * Outcome of one browserless lookup: a price with the selector or structured-data source it
+     * came from, or the reason the browser path should be used instead.
+     */
+    public static final class Result {
+        private final double amount;
+        private final PriceParser.Currency currency;
+        private final String source;
+        private final String failure;
+        private final boolean unchanged;
+        final long regionHash;
+
+        private Result(double amount, PriceParser.Currency currency, String source, String failure,
+                       boolean unchanged, long regionHash) {
+            this.amount = amount;
+            this.currency = currency;
+            this.source = source;
+            this.failure = failure;
+            this.unchanged = unchanged;
+            this.regionHash = regionHash;
+        }
+
+        static Result found(double amount, PriceParser.Currency currency, String source, long regionHash) {
+            return new Result(amount, currency, source, null, false, regionHash);
+        }
+
+        static Result failed(String reason) {
+            return new Result(Double.NaN, PriceParser.Currency.UNKNOWN, null, reason, false, 0);
+        }
+
+        Result withRegionHash(long hash) {
+            return new Result(amount, currency, source, failure, unchanged, hash);
+        }
+
+        Result asUnchanged() {
+            return new Result(amount, currency, source, failure, true, regionHash);
+        }
+
+        public boolean found() {
+            return failure == null;
+        }
+
+        /** Whether the price region is the same as on the previous fetch of this URL. */
+        public boolean unchanged() {
+            return unchanged;
+        }
+
+        public double amount() {
+            return amount;
+        }
+
+        public PriceParser.Currency currency() {
+            return currency;
+        }
+
+        /** Selector or structured-data source of the price. */
+        public String source() {
+            return source;
+        }
+
+        /** Why no price was found, or {@code null}. */
+        public String failure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example;
+
+import org.jsoup.Jsoup;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Browserless price extraction against the embedded storefront and structured-data fallbacks
+ */
+public class HttpPriceFetcherTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static LocalStorefront storefront;
+    private static SelectorRegistry registry;
+    private static HttpPriceFetcher fetcher;
+
+    @BeforeClass
+    public static void startStorefront() {
+        storefront = LocalStorefront.start(0);
+        registry = new SelectorRegistry(folder.getRoot().toPath().resolve("stats.properties"));
+        fetcher = new HttpPriceFetcher(Duration.ofSeconds(10), new PageCache(16));
+    }
+
+    @AfterClass
+    public static void stopStorefront() {
+        storefront.close();
+    }
+
+    @Test
+    public void readsThePriceWithTheMonitorSelectorsOverCompressedHttp() {
+        HttpPriceFetcher.Result result = fetcher.fetch(storefront.baseUrl() + "dp/B08N5WRWNW", chain());
+
+        assertTrue(result.failure(), result.found());
+        assertEquals(59.99, result.amount(), 1e-9);
+        assertEquals(PriceParser.Currency.USD, result.currency());
+        assertEquals(".a-price .a-offscreen", result.source());
+    }
+
+    @Test
+    public void repeatedFetchesOfAnUnchangedPageAreRevalidated() {
+        String url = storefront.baseUrl() + "dp/B0SF000002";
+        HttpPriceFetcher.Result first = fetcher.fetch(url, chain());
+        assertTrue(first.failure(), first.found());
+        assertFalse(first.unchanged());
+
+        HttpPriceFetcher.Result second = fetcher.fetch(url, chain());
+        assertTrue(second.unchanged());
+        assertEquals(first.amount(), second.amount(), 1e-9);
+
+        storefront.setPrice("B0SF000002", first.amount() - 1);
+        HttpPriceFetcher.Result third = fetcher.fetch(url, chain());
+        assertFalse(third.unchanged());
+        assertEquals(first.amount() - 1, third.amount(), 1e-9);
+    }
+
+    @Test
+    public void missingPagesAndBotChecksFail() {
+        assertEquals("HTTP 404", fetcher.fetch(storefront.baseUrl() + "dp/B000000000", chain()).failure());
+
+        HttpPriceFetcher.Result captcha = HttpPriceFetcher.extract(Jsoup.parse(
+            "<form action='/errors/validateCaptcha'><input id='captchacharacters'></form>"), chain());
+        assertFalse(captcha.found());
+    }
+
+    @Test
+    public void fallsBackToStructuredData() {
+        HttpPriceFetcher.Result jsonLd = HttpPriceFetcher.extract(Jsoup.parse(
+            "<div id='dp'><span id='productTitle'>Echo Dot</span></div><script type='application/ld+json'>"
+                + "[{\"@type\":\"BreadcrumbList\"},{\"@type\":\"Product\",\"offers\":"
+                + "{\"@type\":\"Offer\",\"price\":\"4499.00\",\"priceCurrency\":\"INR\"}}]</script>"), chain());
+        assertEquals("json-ld", jsonLd.source());
+        assertEquals(4499.0, jsonLd.amount(), 1e-9);
+        assertEquals(PriceParser.Currency.INR, jsonLd.currency());
+
+        HttpPriceFetcher.Result microdata = HttpPriceFetcher.extract(Jsoup.parse(
+            "<span itemprop='price' content='19.99'>$19.99</span><meta itemprop='priceCurrency' content='USD'>"),
+            chain());
+        assertEquals("itemprop=price", microdata.source());
+        assertEquals(19.99, microdata.amount(), 1e-9);
+        assertEquals(PriceParser.Currency.USD, microdata.currency());
+
+        assertFalse(HttpPriceFetcher.extract(Jsoup.parse("<p>Currently unavailable.</p>"), chain()).found());
+    }
+
+    @Test
+    public void priceMonitorReadsThePageOnEveryCheck() throws Exception {
+        String url = storefront.baseUrl() + "dp/B0SF000003";
+        try (PriceHistoryStore history = new PriceHistoryStore(folder.newFolder().toPath(), 16, 2)) {
+            PriceMonitor monitor = new PriceMonitor(url, 100)
+                .withFetchMode(PriceMonitor.FetchMode.HTTP)
+                .withHttpFetcher(new HttpPriceFetcher(Duration.ofSeconds(10), new PageCache(16)))
+                .withHistory(history)
+                .withSelectorRegistry(registry);
+
+            assertEquals(2749.0, monitor.checkPrice(), 1e-9);
+            storefront.setPrice("B0SF000003", 2599);
+            assertEquals(2599.0, monitor.checkPrice(), 1e-9);
+            assertEquals(2599.0, history.latest(PriceHistoryStore.seriesKey(url)), 1e-9);
+        }
+    }
+
+    private static SelectorRegistry.Chain chain() {
+        return registry.chain("monitor.price.http", PriceMonitor.PRICE_SELECTORS);
+    }
+}
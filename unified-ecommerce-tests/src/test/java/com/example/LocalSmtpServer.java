@@ -0,0 +1,155 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Minimal in-process SMTP stand-in for exercising alert delivery offline. Accepts plain
+ * (no STARTTLS, no AUTH) sessions, records every message it receives and can be told to
+ * reject the next few messages with a transient {@code 451} to exercise retries.
+ */
+public final class LocalSmtpServer implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(LocalSmtpServer.class.getName());
+
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger rejectNext = new AtomicInteger();
+
+    private LocalSmtpServer(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+        this.acceptor = new Thread(this::acceptLoop, "local-smtp");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Starts the server on the loopback interface; port 0 picks a free port.
+     */
+    public static LocalSmtpServer start(int port) {
+        try {
+            LocalSmtpServer server = new LocalSmtpServer(new ServerSocket(port, 50, InetAddress.getLoopbackAddress()));
+            logger.info("Local SMTP server listening on port " + server.port());
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start local SMTP server", e);
+        }
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Settings that point the dispatcher at this server.
+     */
+    public MailSettings settings() {
+        return new MailSettings("127.0.0.1", port(), null, null, false, "monitor@localhost", "alerts@localhost");
+    }
+
+    /** Raw DATA sections received so far, headers included. */
+    public List<String> messages() {
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
+    }
+
+    /** Number of SMTP connections accepted so far. */
+    public int connections() {
+        return connections.get();
+    }
+
+    /** Rejects the next {@code count} messages with {@code 451}. */
+    public void rejectNext(int count) {
+        rejectNext.set(count);
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.fine("Error closing local SMTP server: " + e.getMessage());
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread session = new Thread(() -> serve(socket), "local-smtp-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warning("Local SMTP accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = s.getOutputStream()) {
+            reply(out, "220 localhost ESMTP stand-in");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO":
+                    case "HELO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data = readData(in);
+                        if (rejectNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                            reply(out, "451 Try again later");
+                        } else {
+                            messages.add(data);
+                            reply(out, "250 OK");
+                        }
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    default:
+                        // MAIL, RCPT, RSET, NOOP
+                        reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            logger.fine("Local SMTP session ended: " + e.getMessage());
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+        }
+        return data.toString();
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
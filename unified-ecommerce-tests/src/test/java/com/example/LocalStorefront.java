@@ -0,0 +1,462 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded HTTP stand-in for the Amazon storefront, serving Amazon-shaped fixture pages
+ * (search box, result cards with sponsored variants, product pages, cart, price and rating
+ * refinements, sign-in) from {@code src/test/resources/storefront}.
+ * Used through {@link Storefront} for deterministic offline runs and benchmarks.
+ */
+public final class LocalStorefront implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(LocalStorefront.class.getName());
+
+    private static final String RESOURCES = "/storefront/";
+    private static final String SESSION_COOKIE = "sf-session";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Product> catalog;
+    private final Map<String, String> templates = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> carts = new ConcurrentHashMap<>();
+
+    private LocalStorefront(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+        this.catalog = loadCatalog();
+    }
+
+    /**
+     * Starts the storefront on the loopback interface; port 0 picks a free port.
+     */
+    public static LocalStorefront start(int port) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            ExecutorService executor = Executors.newFixedThreadPool(4, runnable -> {
+                Thread thread = new Thread(runnable, "local-storefront");
+                thread.setDaemon(true);
+                return thread;
+            });
+            LocalStorefront storefront = new LocalStorefront(server, executor);
+            server.createContext("/", storefront::handle);
+            server.setExecutor(executor);
+            server.start();
+            logger.info("Local storefront listening on " + storefront.baseUrl());
+            return storefront;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start local storefront", e);
+        }
+    }
+
+    /**
+     * Base URL with a trailing slash, e.g. {@code http://127.0.0.1:41234/}.
+     */
+    public String baseUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + "/";
+    }
+
+    /**
+     * Changes a product's price, e.g. to simulate a price drop for the monitor.
+     */
+    void setPrice(String asin, double price) {
+        Product product = catalog.get(asin);
+        if (product == null) {
+            throw new IllegalArgumentException("Unknown product " + asin);
+        }
+        catalog.put(asin, new Product(product.asin, product.category, product.title, product.brand, price,
+            product.currency, product.rating, product.sponsored));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                params.putAll(parseQuery(readBody(exchange)));
+            }
+            String session = session(exchange);
+
+            if (path.equals("/") || path.isEmpty()) {
+                sendPage(exchange, session, "Online Shopping", "", template("home.html"));
+            } else if (path.equals("/s")) {
+                search(exchange, session, params);
+            } else if (path.startsWith("/dp/") || path.startsWith("/gp/product/")) {
+                product(exchange, session, path.substring(path.lastIndexOf('/') + 1));
+            } else if (path.equals("/cart/add")) {
+                String asin = params.get("ASIN");
+                if (asin != null && catalog.containsKey(asin)) {
+                    carts.computeIfAbsent(session, key -> Collections.synchronizedList(new ArrayList<>())).add(asin);
+                }
+                redirect(exchange, "/cart");
+            } else if (path.equals("/cart") || path.startsWith("/gp/cart")) {
+                cart(exchange, session);
+            } else if (path.equals("/checkout")) {
+                sendPage(exchange, session, "Checkout", "", template("checkout.html"));
+            } else if (path.equals("/ap/signin")) {
+                signIn(exchange, session, params.get("step"));
+            } else {
+                send(exchange, 404, "text/plain", "Not found: " + path);
+            }
+        } catch (RuntimeException e) {
+            logger.warning("Storefront request failed: " + e.getMessage());
+            send(exchange, 500, "text/plain", "Storefront error: " + e.getMessage());
+        }
+    }
+
+    private void search(HttpExchange exchange, String session, Map<String, String> params) throws IOException {
+        String keywords = params.getOrDefault("field-keywords", params.getOrDefault("k", "")).trim();
+        double lowPrice = parseDouble(params.get("low-price"), 0);
+        double highPrice = parseDouble(params.get("high-price"), Double.MAX_VALUE);
+        String refinement = params.getOrDefault("rh", "");
+        double minRating = refinement.startsWith("p_72:") ? parseDouble(refinement.substring(5).replace("-", ""), 0) : 0;
+
+        List<Product> matches = catalog.values().stream()
+            .filter(product -> product.matches(keywords))
+            .filter(product -> product.price >= lowPrice && product.price <= highPrice)
+            .filter(product -> product.rating >= minRating)
+            .collect(Collectors.toList());
+
+        StringBuilder results = new StringBuilder();
+        int position = 1;
+        for (Product product : matches) {
+            results.append(render(template("result-card.html"), product.fields(
+                "position", String.valueOf(position++),
+                "sponsoredClass", product.sponsored ? " AdHolder" : "",
+                "sponsoredLabel", product.sponsored
+                    ? "<span class=\"puis-sponsored-label-text\">Sponsored</span>" : "")));
+        }
+
+        String baseQuery = "/s?field-keywords=" + encode(keywords)
+            + (params.containsKey("low-price") ? "&low-price=" + encode(params.get("low-price")) : "");
+        StringBuilder active = new StringBuilder();
+        if (lowPrice > 0 || highPrice < Double.MAX_VALUE) {
+            active.append("<span class=\"a-color-state\">Price: ").append(escape(params.get("low-price")))
+                .append("+</span>");
+        }
+        if (minRating > 0) {
+            active.append("<span class=\"a-color-state\">").append((int) minRating).append(" Stars &amp; Up</span>");
+        }
+
+        String content = render(template("search.html"), mapOf(
+            "keywords", escape(keywords),
+            "lowPrice", escape(params.getOrDefault("low-price", "")),
+            "highPrice", escape(params.getOrDefault("high-price", "")),
+            "ratingHref4", escape(baseQuery + "&rh=" + encode("p_72:4-")),
+            "ratingHref3", escape(baseQuery + "&rh=" + encode("p_72:3-")),
+            "activeFilters", active.length() == 0 ? ""
+                : "<div class=\"a-section a-spacing-none\">" + active + "</div>",
+            "resultCount", String.valueOf(matches.size()),
+            "results", results.toString()));
+        sendPage(exchange, session, keywords + " - Search", keywords, content);
+    }
+
+    private void product(HttpExchange exchange, String session, String asin) throws IOException {
+        Product product = catalog.get(asin);
+        if (product == null) {
+            send(exchange, 404, "text/plain", "Unknown product " + asin);
+            return;
+        }
+        String content = render(template("product.html"), product.fields(
+            "brandQuery", encode(product.brand),
+            "jsonTitle", product.title.replace("\"", "\\\""),
+            "amount", String.format(Locale.ROOT, "%.2f", product.price),
+            "currency", product.currency));
+        sendPage(exchange, session, product.title, "", content);
+    }
+
+    private void cart(HttpExchange exchange, String session) throws IOException {
+        List<String> asins = new ArrayList<>(carts.getOrDefault(session, Collections.emptyList()));
+        StringBuilder items = new StringBuilder();
+        double subtotal = 0;
+        String currency = "INR";
+        for (String asin : asins) {
+            Product product = catalog.get(asin);
+            items.append(render(template("cart-item.html"), product.fields()));
+            subtotal += product.price;
+            currency = product.currency;
+        }
+        String content = render(template("cart.html"), mapOf(
+            "items", items.toString(),
+            "itemCount", String.valueOf(asins.size()),
+            "subtotal", formatPrice(subtotal, currency)));
+        sendPage(exchange, session, "Shopping Cart", "", content);
+    }
+
+    private void signIn(HttpExchange exchange, String session, String step) throws IOException {
+        if ("email".equals(step)) {
+            sendPage(exchange, session, "Sign in", "", template("signin-password.html"));
+        } else if ("password".equals(step)) {
+            // Like the live site, automated logins end at a bot check
+            sendPage(exchange, session, "Robot Check", "", template("captcha.html"));
+        } else {
+            sendPage(exchange, session, "Sign in", "", template("signin-email.html"));
+        }
+    }
+
+    private void sendPage(HttpExchange exchange, String session, String title, String keywords, String content)
+        throws IOException {
+        String page = render(template("layout.html"), mapOf(
+            "title", escape(title),
+            "keywords", escape(keywords),
+            "account", "Hello, sign in",
+            "cartCount", String.valueOf(carts.getOrDefault(session, Collections.emptyList()).size()),
+            "content", content));
+        send(exchange, 200, "text/html; charset=utf-8", page);
+    }
+
+    private void redirect(HttpExchange exchange, String location) throws IOException {
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(303, -1);
+        exchange.close();
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if (status == 200) {
+            String etag = "\"" + Long.toHexString(PageCache.hash(bytes)) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+        }
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            bytes = gzip(bytes);
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String session(HttpExchange exchange) {
+        String cookies = exchange.getRequestHeaders().getFirst("Cookie");
+        if (cookies != null) {
+            for (String cookie : cookies.split(";")) {
+                String[] pair = cookie.trim().split("=", 2);
+                if (pair.length == 2 && pair[0].equals(SESSION_COOKIE)) {
+                    return pair[1];
+                }
+            }
+        }
+        String session = UUID.randomUUID().toString();
+        exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + session + "; Path=/");
+        return session;
+    }
+
+    private String template(String name) {
+        return templates.computeIfAbsent(name, LocalStorefront::readResource);
+    }
+
+    private static String readResource(String name) {
+        try (InputStream in = LocalStorefront.class.getResourceAsStream(RESOURCES + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing storefront fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Product> loadCatalog() {
+        Map<String, Product> products = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            LocalStorefront.class.getResourceAsStream(RESOURCES + "catalog.csv"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split(",");
+                Product product = new Product(columns[0], columns[1], columns[2], columns[3],
+                    Double.parseDouble(columns[4]), columns[5], Double.parseDouble(columns[6]),
+                    Boolean.parseBoolean(columns[7]));
+                products.put(product.asin, product);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read storefront catalog", e);
+        }
+        return products;
+    }
+
+    static String render(String template, Map<String, String> values) {
+        StringBuilder out = new StringBuilder(template.length() + 256);
+        int position = 0;
+        while (true) {
+            int open = template.indexOf("{{", position);
+            if (open < 0) {
+                break;
+            }
+            int close = template.indexOf("}}", open);
+            out.append(template, position, open);
+            String value = values.get(template.substring(open + 2, close));
+            out.append(value == null ? "" : value);
+            position = close + 2;
+        }
+        return out.append(template, position, template.length()).toString();
+    }
+
+    static String formatPrice(double amount, String currency) {
+        if ("USD".equals(currency)) {
+            return NumberFormat.getCurrencyInstance(Locale.US).format(amount);
+        }
+        // Indian lakh grouping, e.g. ₹1,23,456.00 (DecimalFormat only supports fixed group sizes)
+        String plain = String.format(Locale.ROOT, "%.2f", amount);
+        String whole = plain.substring(0, plain.length() - 3);
+        StringBuilder grouped = new StringBuilder();
+        int length = whole.length();
+        for (int i = 0; i < length; i++) {
+            int remaining = length - i;
+            if (i > 0 && (remaining == 3 || (remaining > 3 && (remaining - 3) % 2 == 0))) {
+                grouped.append(',');
+            }
+            grouped.append(whole.charAt(i));
+        }
+        return "₹" + grouped + plain.substring(plain.length() - 3);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            String[] parts = pair.split("=", 2);
+            params.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static double parseDouble(String value, double fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static Map<String, String> mapOf(String... keyValues) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            map.put(keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static final class Product {
+        final String asin;
+        final String category;
+        final String title;
+        final String brand;
+        final double price;
+        final String currency;
+        final double rating;
+        final boolean sponsored;
+
+        Product(String asin, String category, String title, String brand, double price, String currency,
+                double rating, boolean sponsored) {
+            this.asin = asin;
+            this.category = category;
+            this.title = title;
+            this.brand = brand;
+            this.price = price;
+            this.currency = currency;
+            this.rating = rating;
+            this.sponsored = sponsored;
+        }
+
+        /**
+         * Every search word longer than one letter must appear in the category, title or brand.
+         */
+        boolean matches(String keywords) {
+            String haystack = (category + " " + title + " " + brand).toLowerCase(Locale.ROOT);
+            for (String word : keywords.toLowerCase(Locale.ROOT).split("\\s+")) {
+                if (word.length() > 1 && !haystack.contains(word)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Map<String, String> fields(String... extra) {
+            Map<String, String> fields = mapOf(
+                "asin", asin,
+                "title", escape(title),
+                "brand", escape(brand),
+                "rating", String.valueOf(rating),
+                "price", formatPrice(price, currency));
+            fields.putAll(mapOf(extra));
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fixture pages served by the embedded storefront keep the Amazon shapes the suite relies on
+ */
+public class LocalStorefrontTest {
+
+    private static LocalStorefront storefront;
+    private static HttpClient client;
+
+    @BeforeClass
+    public static void startStorefront() {
+        storefront = LocalStorefront.start(0);
+        client = HttpClient.newBuilder()
+            .cookieHandler(new CookieManager())
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    }
+
+    @AfterClass
+    public static void stopStorefront() {
+        storefront.close();
+    }
+
+    @Test
+    public void searchRendersResultCardsWithSponsoredVariant() throws Exception {
+        String page = get("s?field-keywords=laptop");
+
+        assertTrue(page.contains("id=\"twotabsearchtextbox\""));
+        assertTrue(page.contains("data-component-type=\"s-search-result\""));
+        assertTrue(page.contains("puis-sponsored-label-text"));
+        assertTrue(page.contains("href=\"/dp/B0SF000012\""));
+        assertTrue(page.contains("id=\"low-price\""));
+        assertTrue(page.contains("p_72%3A4-"));
+    }
+
+    @Test
+    public void refinementsFilterByPriceAndRating() throws Exception {
+        String page = get("s?field-keywords=laptop&low-price=40000&rh=p_72%3A4-");
+
+        assertTrue(page.contains("B0SF000013"));
+        assertFalse("below the price floor", page.contains("B0SF000012"));
+        assertFalse("below the rating floor", page.contains("B0SF000015"));
+    }
+
+    @Test
+    public void productPageAndCartUseIndianGrouping() throws Exception {
+        String product = get("dp/B0SF000013");
+        assertTrue(product.contains("id=\"productTitle\""));
+        assertTrue(product.contains("₹64,990.00"));
+
+        HttpResponse<String> cart = client.send(HttpRequest.newBuilder(URI.create(storefront.baseUrl() + "cart/add"))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString("ASIN=B0SF000013"))
+            .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, cart.statusCode());
+        assertTrue(cart.body().contains("id=\"sc-subtotal-amount-activecart\""));
+        assertTrue(cart.body().contains("₹64,990.00"));
+        assertEquals("₹1,23,456.00", LocalStorefront.formatPrice(123456, "INR"));
+    }
+
+    @Test
+    public void storefrontResolvesLiveUrlsOntoOverride() {
+        String base = storefront.baseUrl();
+        assertEquals(base + "dp/B08N5WRWNW", Storefront.resolve(base, "https://www.amazon.com/dp/B08N5WRWNW"));
+        assertEquals(base + "s?k=shelf", Storefront.resolve(base, "https://www.amazon.in/s?k=shelf"));
+        assertEquals("https://www.amazon.in/dp/B08N5WRWNW", Storefront.resolve(null, "https://www.amazon.in/dp/B08N5WRWNW"));
+        assertTrue(Storefront.isStorefrontUrl(base, base + "cart"));
+        assertFalse(Storefront.isStorefrontUrl(base, "https://www.amazon.in/cart"));
+        assertTrue(Storefront.isStorefrontUrl(null, "https://www.amazon.in/cart"));
+    }
+
+    private static String get(String path) throws Exception {
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(storefront.baseUrl() + path)).build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response.body();
+    }
+}
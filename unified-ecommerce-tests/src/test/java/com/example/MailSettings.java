@@ -0,0 +1,85 @@
+package com.example;
+
+import java.util.Properties;
+
+/**
+ * SMTP connection and addressing for price alerts, read from system properties:
+ * <ul>
+ *   <li>{@code notify.smtp.host} / {@code notify.smtp.port} (default {@code smtp.gmail.com:587})</li>
+ *   <li>{@code notify.smtp.user} / {@code notify.smtp.password}; authentication is used when a user is set</li>
+ *   <li>{@code notify.smtp.starttls} (default {@code true})</li>
+ *   <li>{@code notify.from} / {@code notify.to}</li>
+ * </ul>
+ * The defaults are the placeholder credentials the monitor always shipped with.
+ */
+public final class MailSettings {
+
+    private final String host;
+    private final int port;
+    private final String user;
+    private final String password;
+    private final boolean startTls;
+    private final String from;
+    private final String to;
+
+    MailSettings(String host, int port, String user, String password, boolean startTls, String from, String to) {
+        this.host = host;
+        this.port = port;
+        this.user = user;
+        this.password = password;
+        this.startTls = startTls;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static MailSettings fromSystemProperties() {
+        String user = System.getProperty("notify.smtp.user", "your-email@gmail.com");
+        return new MailSettings(
+            System.getProperty("notify.smtp.host", "smtp.gmail.com"),
+            Integer.getInteger("notify.smtp.port", 587),
+            user.isEmpty() ? null : user,
+            System.getProperty("notify.smtp.password", "your-app-password"),
+            Boolean.parseBoolean(System.getProperty("notify.smtp.starttls", "true")),
+            System.getProperty("notify.from", user.isEmpty() ? "price-monitor@localhost" : user),
+            System.getProperty("notify.to", "recipient@example.com"));
+    }
+
+    /**
+     * JavaMail session properties for these settings.
+     */
+    Properties sessionProperties() {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        props.put("mail.smtp.auth", String.valueOf(user != null));
+        props.put("mail.smtp.starttls.enable", String.valueOf(startTls));
+        props.put("mail.smtp.connectiontimeout", "10000");
+        props.put("mail.smtp.timeout", "10000");
+        return props;
+    }
+
+    public String host() {
+        return host;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    /** SMTP user, or {@code null} to connect without authentication. */
+    public String user() {
+        return user;
+    }
+
+    public String password() {
+        return password;
+    }
+
+    public String from() {
+        return from;
+    }
+
+    public String to() {
+        return to;
+    }
+}
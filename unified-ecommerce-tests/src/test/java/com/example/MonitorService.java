@@ -0,0 +1,339 @@
+package com.example;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Long-running scheduler for many monitored products.
+ * <p>
+ * Every product sits in one {@link DelayQueue} keyed by its next due time, so thousands of
+ * products cost one scheduler thread and no timers. The next check is scheduled from the end of
+ * the previous one with a random jitter, so products never line up into bursts and a slow check
+ * pushes its own schedule out instead of overlapping itself. Before a check is handed to the
+ * bounded worker pool it needs a free worker (the scheduler blocks otherwise, so work never queues
+ * up behind busy threads) and a token from its host's {@link TokenBucket}; a check without a token
+ * goes back into the delay queue until the bucket refills. Checks slower than the slow-check
+ * threshold halve their host's rate, fast checks win it back gradually. With an
+ * {@link AdaptivePollPolicy} each product's interval follows its own price volatility.
+ */
+public final class MonitorService implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(MonitorService.class.getName());
+
+    /** Lowest a host's rate is cut to by slow checks, as a fraction of the configured rate. */
+    private static final double MIN_RATE_FRACTION = 1.0 / 16;
+
+    private final DelayQueue<ScheduledCheck> due = new DelayQueue<>();
+    private final Map<String, ScheduledCheck> checks = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> hosts = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor workers;
+    private final Semaphore idleWorkers;
+    private final double hostRate;
+    private final double hostBurst;
+    private final double jitter;
+    private final long slowCheckNanos;
+    private final LongSupplier nanoClock;
+    private final Thread scheduler;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * Service configured by {@code -Dmonitor.workers} (default 8), {@code -Dmonitor.host.ratePerSecond}
+     * (default 1), {@code -Dmonitor.host.burst} (default 3), {@code -Dmonitor.jitter} (default 0.1,
+     * the fraction an interval may vary by) and {@code -Dmonitor.slowCheckMillis} (default 5000).
+     */
+    public MonitorService() {
+        this(Integer.getInteger("monitor.workers", 8),
+            Double.parseDouble(System.getProperty("monitor.host.ratePerSecond", "1")),
+            Double.parseDouble(System.getProperty("monitor.host.burst", "3")),
+            Double.parseDouble(System.getProperty("monitor.jitter", "0.1")),
+            Duration.ofMillis(Long.getLong("monitor.slowCheckMillis", 5000L)));
+    }
+
+    MonitorService(int workerCount, double hostRate, double hostBurst, double jitter, Duration slowCheck) {
+        this(workerCount, hostRate, hostBurst, jitter, slowCheck, System::nanoTime);
+    }
+
+    /**
+     * {@code nanoClock} refills the host token buckets and times checks against the slow-check
+     * threshold; the delay queue always runs on {@link System#nanoTime()}.
+     */
+    MonitorService(int workerCount, double hostRate, double hostBurst, double jitter, Duration slowCheck,
+                   LongSupplier nanoClock) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("At least one worker is required: " + workerCount);
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("Jitter must be in [0, 1): " + jitter);
+        }
+        if (!(hostRate > 0) || hostBurst < 1) {
+            throw new IllegalArgumentException("Host rate must be positive and burst at least 1: " + hostRate + ", " + hostBurst);
+        }
+        this.hostRate = hostRate;
+        this.hostBurst = hostBurst;
+        this.jitter = jitter;
+        this.slowCheckNanos = slowCheck.toNanos();
+        this.nanoClock = nanoClock;
+        this.idleWorkers = new Semaphore(workerCount);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // The idle-worker semaphore bounds submissions; the queue only bridges a worker that has
+        // released its permit but not yet returned to the pool
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "monitor-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        workers.allowCoreThreadTimeOut(true);
+
+        this.scheduler = new Thread(this::schedule, "monitor-scheduler");
+        scheduler.setDaemon(true);
+        scheduler.start();
+    }
+
+    /**
+     * Checks the monitor's product about every {@code interval}, releasing any pooled browser
+     * session after each check so idle products hold no driver.
+     */
+    public void watch(PriceMonitor monitor, Duration interval) {
+        watch(monitor.productUrl(), interval, () -> {
+            try {
+                monitor.checkPrice();
+            } finally {
+                monitor.close();
+            }
+        });
+    }
+
+    /**
+     * Checks the monitor's product at intervals chosen by {@code policy} from the product's price
+     * volatility and its distance to the alert level, starting at the policy's minimum interval.
+     * A check that reads no price keeps the previous interval.
+     */
+    public void watch(PriceMonitor monitor, AdaptivePollPolicy policy) {
+        String key = PriceHistoryStore.seriesKey(monitor.productUrl());
+        watch(monitor.productUrl(), policy.minInterval(), () -> {
+            double price;
+            try {
+                price = monitor.checkPrice();
+            } finally {
+                monitor.close();
+            }
+            return policy.nextInterval(key, System.currentTimeMillis(), price, monitor.triggerLevel());
+        });
+    }
+
+    /**
+     * Runs {@code check} for {@code url} about every {@code interval}, replacing any check already
+     * registered for the URL. The first run is spread randomly over the first interval.
+     */
+    public void watch(String url, Duration interval, Runnable check) {
+        watch(url, interval, () -> {
+            check.run();
+            return null;
+        });
+    }
+
+    /**
+     * Like {@link #watch(String, Duration, Runnable)}, but {@code check} returns the interval until
+     * its next run, or {@code null} to keep the current one.
+     */
+    void watch(String url, Duration interval, Supplier<Duration> check) {
+        if (closed) {
+            throw new IllegalStateException("Monitor service is closed");
+        }
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        ScheduledCheck scheduled = new ScheduledCheck(url, host(url), interval.toNanos(), check);
+        scheduled.dueAt = System.nanoTime() + (long) (ThreadLocalRandom.current().nextDouble() * scheduled.intervalNanos);
+        ScheduledCheck previous = checks.put(url, scheduled);
+        if (previous != null) {
+            previous.cancelled = true;
+            due.remove(previous);
+        }
+        due.put(scheduled);
+    }
+
+    /** Stops checking {@code url}; a check already running finishes. */
+    public boolean unwatch(String url) {
+        ScheduledCheck scheduled = checks.remove(url);
+        if (scheduled == null) {
+            return false;
+        }
+        scheduled.cancelled = true;
+        due.remove(scheduled);
+        return true;
+    }
+
+    public int watched() {
+        return checks.size();
+    }
+
+    /** Checks finished so far. */
+    public long completedChecks() {
+        return completed.get();
+    }
+
+    /** Times a due check was deferred because its host was out of tokens. */
+    public long throttledChecks() {
+        return throttled.get();
+    }
+
+    /** Current request rate allowed for {@code host}, or {@code NaN} if it has not been checked yet. */
+    public double hostRate(String host) {
+        TokenBucket bucket = hosts.get(host);
+        return bucket == null ? Double.NaN : bucket.rate();
+    }
+
+    /**
+     * Stops scheduling and waits up to {@code timeout} for running checks to finish.
+     */
+    public void close(Duration timeout) {
+        closed = true;
+        scheduler.interrupt();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warning("Price checks still running after " + timeout + "; interrupting");
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        due.clear();
+        checks.clear();
+    }
+
+    @Override
+    public void close() {
+        close(Duration.ofSeconds(30));
+    }
+
+    private void schedule() {
+        while (!closed) {
+            try {
+                ScheduledCheck next = due.take();
+                if (next.cancelled) {
+                    continue;
+                }
+                idleWorkers.acquire();
+                TokenBucket bucket = hosts.computeIfAbsent(next.host, host -> new TokenBucket(hostRate, hostBurst, nanoClock));
+                long wait = bucket.tryAcquire();
+                if (wait > 0) {
+                    idleWorkers.release();
+                    throttled.incrementAndGet();
+                    next.dueAt = System.nanoTime() + wait;
+                    due.put(next);
+                    continue;
+                }
+                workers.execute(() -> run(next, bucket));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                if (!closed) {
+                    logger.log(Level.WARNING, "Price check scheduling failed", e);
+                }
+            }
+        }
+    }
+
+    private void run(ScheduledCheck scheduled, TokenBucket bucket) {
+        long started = nanoClock.getAsLong();
+        try {
+            Duration next = scheduled.check.get();
+            if (next != null && !next.isNegative() && !next.isZero()) {
+                scheduled.intervalNanos = next.toNanos();
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Price check failed for " + scheduled.url, e);
+        } finally {
+            completed.incrementAndGet();
+            adjustRate(scheduled.host, bucket, nanoClock.getAsLong() - started);
+            idleWorkers.release();
+            if (!closed && !scheduled.cancelled) {
+                scheduled.dueAt = System.nanoTime() + jittered(scheduled.intervalNanos);
+                due.put(scheduled);
+            }
+        }
+    }
+
+    /**
+     * Halves the host's rate after a slow check and restores a sixteenth of the configured rate
+     * after each fast one, so a struggling host is polled less until it recovers.
+     */
+    private void adjustRate(String host, TokenBucket bucket, long elapsedNanos) {
+        double rate = bucket.rate();
+        if (elapsedNanos > slowCheckNanos) {
+            double reduced = Math.max(hostRate * MIN_RATE_FRACTION, rate / 2);
+            if (reduced < rate) {
+                bucket.setRate(reduced);
+                logger.info("Slow check on " + host + " (" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+                    + " ms); rate lowered to " + reduced + "/s");
+            }
+        } else if (rate < hostRate) {
+            bucket.setRate(Math.min(hostRate, rate + hostRate * MIN_RATE_FRACTION));
+        }
+    }
+
+    private long jittered(long intervalNanos) {
+        if (jitter == 0) {
+            return intervalNanos;
+        }
+        return (long) (intervalNanos * (1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1)));
+    }
+
+    static String host(String url) {
+        String host = URI.create(url).getHost();
+        if (host == null) {
+            throw new IllegalArgumentException("URL has no host: " + url);
+        }
+        return host;
+    }
+
+    private static final class ScheduledCheck implements Delayed {
+        final String url;
+        final String host;
+        final Supplier<Duration> check;
+        volatile long intervalNanos;
+        volatile long dueAt;
+        volatile boolean cancelled;
+
+        ScheduledCheck(String url, String host, long intervalNanos, Supplier<Duration> check) {
+            this.url = url;
+            this.host = host;
+            this.intervalNanos = intervalNanos;
+            this.check = check;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((ScheduledCheck) other).dueAt);
+        }
+    }
+}
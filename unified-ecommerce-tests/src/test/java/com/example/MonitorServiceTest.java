@@ -0,0 +1,124 @@
+package com.example;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scheduling, per-host rate limiting and backpressure of the multi-product monitor
+ */
+public class MonitorServiceTest {
+
+    @Test
+    public void tokenBucketRefillsAtItsRateUpToTheBurst() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, 2, now::get);
+
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.tryAcquire());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+
+        bucket.setRate(0.5);
+        assertEquals(TimeUnit.SECONDS.toNanos(2), bucket.tryAcquire());
+    }
+
+    @Test
+    public void limitsEachHostAndNeverExceedsTheWorkerPool() throws InterruptedException {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger firstHost = new AtomicInteger();
+        AtomicInteger secondHost = new AtomicInteger();
+
+        try (MonitorService service = new MonitorService(2, 10, 20, 0.1, Duration.ofSeconds(10), now::get)) {
+            for (int i = 0; i < 50; i++) {
+                service.watch("http://first.example/dp/" + i, Duration.ofMillis(20), check(running, maxRunning, firstHost));
+                service.watch("http://second.example/dp/" + i, Duration.ofMillis(20), check(running, maxRunning, secondHost));
+            }
+            assertEquals(100, service.watched());
+
+            // The clock stands still, so each host gets its burst and no more
+            assertTrue(awaitTrue(() -> firstHost.get() == 20 && secondHost.get() == 20 && service.throttledChecks() >= 100));
+            long throttled = service.throttledChecks();
+            assertTrue(awaitTrue(() -> service.throttledChecks() >= throttled + 100));
+            assertEquals(20, firstHost.get());
+            assertEquals(20, secondHost.get());
+
+            // 150 ms at ten per second refills one and a half tokens per host
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+            assertTrue(awaitTrue(() -> firstHost.get() == 21 && secondHost.get() == 21));
+            long refilled = service.throttledChecks();
+            assertTrue(awaitTrue(() -> service.throttledChecks() >= refilled + 100));
+            assertEquals(21, firstHost.get());
+            assertEquals(21, secondHost.get());
+        }
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void slowChecksLowerTheHostRateAndUnwatchStopsChecks() throws InterruptedException {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger checks = new AtomicInteger();
+        AtomicInteger probes = new AtomicInteger();
+        try (MonitorService service = new MonitorService(1, 100, 1, 0, Duration.ofMillis(5), now::get)) {
+            service.watch("http://slow.example/dp/1", Duration.ofMillis(10), () -> {
+                checks.incrementAndGet();
+                now.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+            });
+            assertTrue(awaitTrue(() -> service.hostRate("slow.example") < 100));
+            assertTrue(service.completedChecks() > 0);
+
+            assertTrue(service.unwatch("http://slow.example/dp/1"));
+            // Every probe refills all host buckets, so a check still scheduled would run again. With
+            // one worker, the first probe starts only after a check already handed over has finished.
+            service.watch("http://probe.example/dp/1", Duration.ofMillis(10), () -> {
+                probes.incrementAndGet();
+                now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            });
+            assertTrue(awaitTrue(() -> probes.get() >= 1));
+            int stopped = checks.get();
+            assertTrue(awaitTrue(() -> probes.get() >= 20));
+            assertEquals(stopped, checks.get());
+            assertFalse(service.unwatch("http://slow.example/dp/1"));
+        }
+    }
+
+    private static Runnable check(AtomicInteger running, AtomicInteger maxRunning, AtomicInteger count) {
+        return () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(5);
+            count.incrementAndGet();
+            running.decrementAndGet();
+        };
+    }
+
+    private static boolean awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
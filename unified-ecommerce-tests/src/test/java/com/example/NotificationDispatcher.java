@@ -0,0 +1,282 @@
+package com.example;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous e-mail pipeline for price alerts.
+ * <p>
+ * {@link #submit} only offers to a bounded queue, so a price check never waits for SMTP.
+ * A single background sender collects every alert that arrives within the digest interval
+ * into one message, sends it over one long-lived {@link Transport} connection and retries
+ * failed sends with exponential backoff, reconnecting as needed.
+ */
+public final class NotificationDispatcher implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(NotificationDispatcher.class.getName());
+
+    private static volatile NotificationDispatcher shared;
+
+    private final MailSettings settings;
+    private final Session session;
+    private final BlockingQueue<Notification> queue;
+    private final Duration digestInterval;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Thread sender;
+    private final Object idleLock = new Object();
+
+    private volatile boolean closed;
+    private int inFlight;
+    private Transport transport;
+
+    NotificationDispatcher(MailSettings settings, int queueCapacity, Duration digestInterval,
+                           int maxAttempts, Duration initialBackoff) {
+        this.settings = settings;
+        this.session = Session.getInstance(settings.sessionProperties());
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.digestInterval = digestInterval;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.sender = new Thread(this::run, "notification-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Process-wide dispatcher configured by {@link MailSettings#fromSystemProperties()} plus
+     * {@code notify.queueSize} (default 1000), {@code notify.digestSeconds} (default 30),
+     * {@code notify.maxAttempts} (default 4) and {@code notify.backoffMillis} (default 1000).
+     * Pending alerts are flushed when the JVM exits.
+     */
+    public static NotificationDispatcher shared() {
+        NotificationDispatcher dispatcher = shared;
+        if (dispatcher == null) {
+            synchronized (NotificationDispatcher.class) {
+                dispatcher = shared;
+                if (dispatcher == null) {
+                    dispatcher = new NotificationDispatcher(MailSettings.fromSystemProperties(),
+                        Integer.getInteger("notify.queueSize", 1000),
+                        Duration.ofSeconds(Long.getLong("notify.digestSeconds", 30L)),
+                        Integer.getInteger("notify.maxAttempts", 4),
+                        Duration.ofMillis(Long.getLong("notify.backoffMillis", 1000L)));
+                    Runtime.getRuntime().addShutdownHook(new Thread(dispatcher::close, "notification-flush"));
+                    shared = dispatcher;
+                }
+            }
+        }
+        return dispatcher;
+    }
+
+    /** Mail session the sender uses, so tests can install their own transport. */
+    Session session() {
+        return session;
+    }
+
+    /**
+     * Queues an alert without blocking.
+     *
+     * @return {@code false} if the dispatcher is closed or the queue is full and the alert was dropped
+     */
+    public boolean submit(String subject, String message) {
+        if (closed) {
+            logger.warning("Notification dispatcher is closed; dropping alert: " + subject);
+            return false;
+        }
+        synchronized (idleLock) {
+            if (!queue.offer(new Notification(subject, message))) {
+                logger.warning("Notification queue is full; dropping alert: " + subject);
+                return false;
+            }
+            inFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * Waits until every submitted alert has been sent or given up on.
+     *
+     * @return whether the dispatcher went idle within the timeout
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (idleLock) {
+            while (inFlight > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                idleLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting alerts, sends what is queued without waiting for the digest interval
+     * (bounded by {@code notify.shutdownSeconds}, default 10) and closes the connection.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        sender.interrupt();
+        try {
+            sender.join(TimeUnit.SECONDS.toMillis(Long.getLong("notify.shutdownSeconds", 10L)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (sender.isAlive()) {
+            logger.warning("Gave up flushing " + queue.size() + " queued alerts");
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                List<Notification> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    try {
+                        deliver(batch);
+                    } catch (RuntimeException e) {
+                        // A bad address or setting must not kill the sender and strand later alerts
+                        logger.log(Level.SEVERE, "Dropping " + batch.size() + " alert(s) after an unexpected delivery error", e);
+                        disconnect();
+                    } finally {
+                        synchronized (idleLock) {
+                            inFlight -= batch.size();
+                            idleLock.notifyAll();
+                        }
+                    }
+                }
+            }
+        } finally {
+            disconnect();
+        }
+    }
+
+    /**
+     * Blocks for the first alert, waits out the digest interval and takes everything queued
+     * meanwhile. Once closing, drains whatever is queued immediately.
+     */
+    private List<Notification> nextBatch() {
+        List<Notification> batch = new ArrayList<>();
+        try {
+            if (closed) {
+                queue.drainTo(batch);
+                return batch;
+            }
+            Notification first = queue.poll(1, TimeUnit.SECONDS);
+            if (first == null) {
+                return batch;
+            }
+            batch.add(first);
+            // later alerts wait in the bounded queue, so its capacity caps what a digest can hold
+            if (!digestInterval.isZero()) {
+                Thread.sleep(digestInterval.toMillis());
+            }
+        } catch (InterruptedException e) {
+            // close() wakes the sender up so the batch goes out without waiting for the interval
+        }
+        queue.drainTo(batch);
+        return batch;
+    }
+
+    private void deliver(List<Notification> batch) {
+        long backoff = initialBackoff.toMillis();
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                MimeMessage message = compose(batch);
+                Transport connected = connection();
+                connected.sendMessage(message, message.getAllRecipients());
+                logger.info("Sent " + (batch.size() == 1 ? "alert" : "digest of " + batch.size() + " alerts")
+                    + " to " + settings.to());
+                return;
+            } catch (MessagingException e) {
+                logger.warning("Alert delivery attempt " + attempt + "/" + maxAttempts + " failed: " + e.getMessage());
+                disconnect();
+                if (attempt < maxAttempts && !sleep(backoff)) {
+                    break;
+                }
+                backoff *= 2;
+            }
+        }
+        logger.severe("Dropping " + batch.size() + " alert(s) after " + maxAttempts + " failed delivery attempts");
+    }
+
+    private MimeMessage compose(List<Notification> batch) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(settings.from()));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(settings.to()));
+        if (batch.size() == 1) {
+            message.setSubject(batch.get(0).subject);
+            message.setText(batch.get(0).message);
+        } else {
+            StringBuilder body = new StringBuilder();
+            for (Notification notification : batch) {
+                body.append(notification.subject).append('\n').append(notification.message).append("\n\n");
+            }
+            message.setSubject(batch.size() + " price alerts");
+            message.setText(body.toString().trim());
+        }
+        message.saveChanges();
+        return message;
+    }
+
+    private Transport connection() throws MessagingException {
+        if (transport == null || !transport.isConnected()) {
+            disconnect();
+            transport = session.getTransport("smtp");
+            transport.connect(settings.host(), settings.port(), settings.user(), settings.password());
+            logger.fine("Opened SMTP connection to " + settings.host() + ":" + settings.port());
+        }
+        return transport;
+    }
+
+    private void disconnect() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                logger.log(Level.FINE, "Error closing SMTP connection", e);
+            }
+            transport = null;
+        }
+    }
+
+    /**
+     * Backoff pause; returns {@code false} when woken by {@link #close()} while still failing.
+     */
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return !closed;
+        }
+    }
+
+    private static final class Notification {
+        final String subject;
+        final String message;
+
+        Notification(String subject, String message) {
+            this.subject = subject;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.Provider;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.URLName;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Digest batching, connection reuse and retries of the alert pipeline against a local SMTP stand-in
+ */
+public class NotificationDispatcherTest {
+
+    private LocalSmtpServer smtp;
+
+    @Before
+    public void startSmtp() {
+        smtp = LocalSmtpServer.start(0);
+    }
+
+    @After
+    public void stopSmtp() {
+        smtp.close();
+    }
+
+    @Test
+    public void alertsWithinTheIntervalAreSentAsOneDigest() throws Exception {
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(smtp.settings(), 10,
+            Duration.ofMillis(300), 3, Duration.ofMillis(10))) {
+            assertTrue(dispatcher.submit("Price Drop Alert!", "B08N5WRWNW dropped to $54.10"));
+            assertTrue(dispatcher.submit("Price Drop Alert!", "B07XJ8C8F5 dropped to $19.99"));
+            assertTrue(dispatcher.submit("Price Drop Alert!", "B09G9FPHY6 dropped to $31.00"));
+            assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(10)));
+        }
+
+        List<String> messages = smtp.messages();
+        assertEquals(1, messages.size());
+        assertTrue(messages.get(0).contains("Subject: 3 price alerts"));
+        assertTrue(messages.get(0).contains("B07XJ8C8F5 dropped to $19.99"));
+    }
+
+    @Test
+    public void separateDigestsReuseOneConnection() throws Exception {
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(smtp.settings(), 10,
+            Duration.ZERO, 3, Duration.ofMillis(10))) {
+            for (int i = 0; i < 3; i++) {
+                dispatcher.submit("Price Drop Alert!", "alert " + i);
+                assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(10)));
+            }
+        }
+
+        assertEquals(3, smtp.messages().size());
+        assertEquals(1, smtp.connections());
+    }
+
+    @Test
+    public void transientFailuresAreRetriedWithBackoff() throws Exception {
+        smtp.rejectNext(2);
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(smtp.settings(), 10,
+            Duration.ZERO, 3, Duration.ofMillis(10))) {
+            dispatcher.submit("Price Drop Alert!", "retried alert");
+            assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(10)));
+        }
+
+        assertEquals(1, smtp.messages().size());
+        assertTrue(smtp.messages().get(0).contains("retried alert"));
+    }
+
+    @Test
+    public void fullQueueDropsInsteadOfBlocking() throws Exception {
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(smtp.settings(), 1,
+            Duration.ofSeconds(5), 1, Duration.ofMillis(10))) {
+            int accepted = 0;
+            for (int i = 0; i < 5; i++) {
+                if (dispatcher.submit("Price Drop Alert!", "alert " + i)) {
+                    accepted++;
+                }
+            }
+            assertTrue(accepted < 5);
+        }
+    }
+
+    @Test
+    public void unexpectedErrorsDropTheBatchButKeepTheSenderRunning() throws Exception {
+        ThrowingTransport.sends.set(0);
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(smtp.settings(), 10,
+            Duration.ZERO, 3, Duration.ofMillis(10))) {
+            dispatcher.session().setProvider(new Provider(Provider.Type.TRANSPORT, "smtp",
+                ThrowingTransport.class.getName(), "test", "1"));
+            assertTrue(dispatcher.submit("Price Drop Alert!", "first"));
+            assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(10)));
+            assertTrue(dispatcher.submit("Price Drop Alert!", "second"));
+            assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(10)));
+        }
+
+        assertEquals("each batch reached the transport once", 2, ThrowingTransport.sends.get());
+        assertTrue(smtp.messages().isEmpty());
+    }
+
+    public static final class ThrowingTransport extends Transport {
+        static final AtomicInteger sends = new AtomicInteger();
+
+        public ThrowingTransport(Session session, URLName url) {
+            super(session, url);
+        }
+
+        @Override
+        protected boolean protocolConnect(String host, int port, String user, String password) {
+            return true;
+        }
+
+        @Override
+        public void sendMessage(Message message, Address[] addresses) {
+            sends.incrementAndGet();
+            throw new IllegalStateException("transport is broken");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU of the last extract per monitored URL: validators for conditional requests
+ * ({@code ETag}, {@code Last-Modified}), a hash of the whole response body and a hash of the
+ * price region, plus the price that was extracted. Lets {@link HttpPriceFetcher} answer
+ * "unchanged" without downloading (304), without parsing (same body) or without re-evaluating
+ * rules (same price region).
+ */
+public final class PageCache {
+
+    private final Map<String, Entry> entries;
+
+    public PageCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Page cache capacity must be positive: " + capacity);
+        }
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PageCache.Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    public synchronized void put(String url, Entry entry) {
+        entries.put(url, entry);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 64-bit FNV-1a over raw bytes.
+     */
+    static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 64-bit FNV-1a over UTF-16 chars.
+     */
+    static long hash(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * What is remembered about one URL.
+     */
+    public static final class Entry {
+        final String etag;
+        final String lastModified;
+        final long bodyHash;
+        final long regionHash;
+        final HttpPriceFetcher.Result result;
+
+        Entry(String etag, String lastModified, long bodyHash, long regionHash, HttpPriceFetcher.Result result) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.bodyHash = bodyHash;
+            this.regionHash = regionHash;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.example;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * What the browser itself measured for each page the suite and the monitors load: Navigation
+ * Timing, Resource Timing, long tasks and the DevTools {@code Performance.getMetrics} counters.
+ * <p>
+ * Capturing is off unless {@code -Dpage.performance=true}: it adds WebDriver round trips that the
+ * command metrics and flow benchmarks would otherwise count as the suite's own. When on,
+ * {@link #capture(WebDriver)} runs after every ready wait that succeeded, costing one script
+ * execution, plus one DevTools call for each new document. Each navigation is split into
+ * network time (navigation start to the last byte of the document) and page time (last byte to
+ * the load event, or to the capture if the load event has not fired yet). Both are attached to
+ * the {@link StepTracer} step that was open at the time. On export the navigations are written
+ * as {@code navigations-<run>.csv}, and {@code patterns-<run>.csv} holds the p50/p90 of each
+ * metric per URL pattern (product pages collapse to {@code /dp/*}). Per-tab state is dropped
+ * through {@link #forget(WebDriver)} when the {@link DriverPool} resets or quits a session.
+ */
+public final class PagePerformance {
+
+    private static final Logger logger = Logger.getLogger(PagePerformance.class.getName());
+
+    private static final boolean ENABLED = Boolean.getBoolean("page.performance");
+
+    /** Metric columns, in CSV order; -1 or empty where the browser did not report the value. */
+    static final String[] METRICS = {
+        "networkMillis", "pageMillis", "dnsMillis", "connectMillis", "ttfbMillis", "downloadMillis",
+        "domInteractiveMillis", "domContentLoadedMillis", "loadMillis", "transferBytes",
+        "resourceCount", "resourceBytes", "resourceEndMillis", "longTaskCount", "longTaskMillis", "blockingMillis",
+        "scriptMillis", "layoutMillis", "layoutCount", "recalcStyleCount", "taskMillis", "jsHeapMb"
+    };
+
+    /** Metrics summarized per URL pattern. */
+    static final String[] SUMMARIZED = {
+        "networkMillis", "pageMillis", "ttfbMillis", "loadMillis", "scriptMillis", "layoutCount",
+        "longTaskMillis", "jsHeapMb"
+    };
+
+    /** Collects long tasks from the start of every new document; installed once per tab. */
+    private static final String LONG_TASK_OBSERVER =
+        "if(!window.__longTasks){window.__longTasks=[];try{new PerformanceObserver(function(l){"
+        + "l.getEntries().forEach(function(e){window.__longTasks.push(e.duration);});})"
+        + ".observe({type:'longtask',buffered:true});}catch(e){window.__longTasks=null;}}";
+
+    private static final String CAPTURE =
+        "if(document.__pagePerformanceCaptured){return null;}"
+        + "var nav=performance.getEntriesByType('navigation')[0];if(!nav){return null;}"
+        + "document.__pagePerformanceCaptured=true;"
+        + "var res=performance.getEntriesByType('resource');var bytes=0,end=0;"
+        + "for(var i=0;i<res.length;i++){bytes+=res[i].transferSize||0;end=Math.max(end,res[i].responseEnd);}"
+        + "var lt=window.__longTasks,count=-1,total=-1,blocking=-1;"
+        + "if(lt){count=lt.length;total=0;blocking=0;for(var j=0;j<lt.length;j++){total+=lt[j];blocking+=Math.max(0,lt[j]-50);}}"
+        + "var load=nav.loadEventEnd>0?nav.loadEventEnd:performance.now();"
+        + "return {url:location.href,networkMillis:nav.responseEnd-nav.startTime,pageMillis:load-nav.responseEnd,"
+        + "dnsMillis:nav.domainLookupEnd-nav.domainLookupStart,connectMillis:nav.connectEnd-nav.connectStart,"
+        + "ttfbMillis:nav.responseStart-nav.requestStart,downloadMillis:nav.responseEnd-nav.responseStart,"
+        + "domInteractiveMillis:nav.domInteractive,domContentLoadedMillis:nav.domContentLoadedEventEnd,loadMillis:load,"
+        + "transferBytes:nav.transferSize,resourceCount:res.length,resourceBytes:bytes,resourceEndMillis:end,"
+        + "longTaskCount:count,longTaskMillis:total,blockingMillis:blocking};";
+
+    private static volatile PagePerformance shared;
+
+    private final Path directory;
+    private final String runId;
+    private final int maxNavigations;
+    private final List<Navigation> navigations = new ArrayList<>();
+    private final Set<String> enabledTabs = ConcurrentHashMap.newKeySet();
+    private final Map<String, Map<String, Double>> lastCounters = new ConcurrentHashMap<>();
+
+    PagePerformance(Path directory, String runId, int maxNavigations) {
+        this.directory = directory;
+        this.runId = runId;
+        this.maxNavigations = maxNavigations;
+    }
+
+    /**
+     * Process-wide collector writing to {@code -Dpage.performance.dir} (default
+     * {@code target/page-performance}) under the {@link StepTracer} run id, keeping at most
+     * {@code -Dpage.performance.maxNavigations} (default 20000); exported when the JVM exits.
+     */
+    public static PagePerformance shared() {
+        PagePerformance performance = shared;
+        if (performance == null) {
+            synchronized (PagePerformance.class) {
+                performance = shared;
+                if (performance == null) {
+                    performance = new PagePerformance(Paths.get(System.getProperty("page.performance.dir", "target/page-performance")),
+                        StepTracer.shared().runId(), Integer.getInteger("page.performance.maxNavigations", 20_000));
+                    Runtime.getRuntime().addShutdownHook(new Thread(performance::export, "page-performance-export"));
+                    shared = performance;
+                }
+            }
+        }
+        return performance;
+    }
+
+    /**
+     * Turns on the DevTools performance domain and the long-task observer for the driver's
+     * current tab. Call it where the tab is set up; repeated calls for the same tab do nothing.
+     */
+    public static void enable(WebDriver driver) {
+        if (!ENABLED || !(driver instanceof HasCdp)) {
+            return;
+        }
+        try {
+            if (shared().firstUse(tab(driver))) {
+                HasCdp cdp = (HasCdp) driver;
+                cdp.executeCdpCommand("Performance.enable", Collections.emptyMap());
+                cdp.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", Map.of("source", LONG_TASK_OBSERVER));
+            }
+        } catch (RuntimeException e) {
+            logger.fine("Could not enable page performance capture: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the current document's measurements, once per document.
+     */
+    public static void capture(WebDriver driver) {
+        if (!ENABLED || !(driver instanceof JavascriptExecutor)) {
+            return;
+        }
+        try {
+            Object raw = ((JavascriptExecutor) driver).executeScript(CAPTURE);
+            if (raw instanceof Map) {
+                shared().record(tab(driver), (Map<?, ?>) raw, counters(driver));
+            }
+        } catch (RuntimeException e) {
+            logger.fine("Could not capture page performance: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops what is known about the session's tabs, so a pooled session handed to the next
+     * borrower is enabled afresh and its counters are not diffed against another borrower's.
+     */
+    public static void forget(WebDriver driver) {
+        PagePerformance performance = shared;
+        if (performance != null) {
+            performance.forgetDriver(driverKey(driver));
+        }
+    }
+
+    /** {@code true} the first time a tab is seen since its session was last forgotten. */
+    boolean firstUse(String tab) {
+        return enabledTabs.add(tab);
+    }
+
+    void forgetDriver(String driverKey) {
+        String prefix = driverKey + "|";
+        enabledTabs.removeIf(tab -> tab.startsWith(prefix));
+        lastCounters.keySet().removeIf(tab -> tab.startsWith(prefix));
+    }
+
+    private static String driverKey(WebDriver driver) {
+        return Integer.toHexString(System.identityHashCode(driver));
+    }
+
+    private static String tab(WebDriver driver) {
+        return driverKey(driver) + "|" + driver.getWindowHandle();
+    }
+
+    /**
+     * Stores one navigation and attaches its network/page split to the open step. The cumulative
+     * DevTools counters are reported as the change since the tab's previous navigation.
+     */
+    void record(String tab, Map<?, ?> page, Map<String, Double> counters) {
+        String url = String.valueOf(page.get("url"));
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (String metric : METRICS) {
+            Object value = page.get(metric);
+            values.put(metric, value instanceof Number ? ((Number) value).doubleValue() : -1);
+        }
+        if (counters != null) {
+            Map<String, Double> previous = lastCounters.put(tab, counters);
+            values.put("scriptMillis", delta(counters, previous, "ScriptDuration") * 1000);
+            values.put("layoutMillis", delta(counters, previous, "LayoutDuration") * 1000);
+            values.put("layoutCount", delta(counters, previous, "LayoutCount"));
+            values.put("recalcStyleCount", delta(counters, previous, "RecalcStyleCount"));
+            values.put("taskMillis", delta(counters, previous, "TaskDuration") * 1000);
+            values.put("jsHeapMb", counters.containsKey("JSHeapUsedSize")
+                ? counters.get("JSHeapUsedSize") / (1024 * 1024) : -1);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("url", url);
+        summary.put("networkMillis", Math.round(values.get("networkMillis")));
+        summary.put("pageMillis", Math.round(values.get("pageMillis")));
+        String task = StepTracer.currentTask();
+        String step = StepTracer.currentStep();
+        long span = StepTracer.attach("page", summary);
+
+        Navigation navigation = new Navigation(span, task == null ? "" : task, step == null ? "" : step, url, pattern(url), values);
+        synchronized (this) {
+            if (navigations.size() < maxNavigations) {
+                navigations.add(navigation);
+            }
+        }
+        logger.fine("Page " + navigation.pattern + ": network " + Math.round(values.get("networkMillis"))
+            + " ms, page " + Math.round(values.get("pageMillis")) + " ms");
+    }
+
+    public synchronized int navigationCount() {
+        return navigations.size();
+    }
+
+    /**
+     * Writes this run's navigations and the per-pattern summary. Safe to call more than once.
+     */
+    public void export() {
+        List<Navigation> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(navigations);
+        }
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            StringBuilder csv = new StringBuilder("run,span,task,step,pattern,url," + String.join(",", METRICS) + "\n");
+            for (Navigation navigation : snapshot) {
+                csv.append(runId).append(',').append(navigation.span).append(',').append(StepTracer.csvField(navigation.task)).append(',')
+                    .append(StepTracer.csvField(navigation.step)).append(',').append(StepTracer.csvField(navigation.pattern)).append(',')
+                    .append(StepTracer.csvField(navigation.url));
+                for (String metric : METRICS) {
+                    csv.append(',').append(number(navigation.values.get(metric)));
+                }
+                csv.append('\n');
+            }
+            StepTracer.writeAtomically(directory.resolve("navigations-" + runId + ".csv"), csv.toString());
+
+            StringBuilder patterns = new StringBuilder("pattern,count");
+            for (String metric : SUMMARIZED) {
+                patterns.append(',').append(metric).append("P50,").append(metric).append("P90");
+            }
+            patterns.append('\n');
+            for (Map.Entry<String, PatternSummary> pattern : byPattern(snapshot).entrySet()) {
+                Map<String, double[]> metrics = pattern.getValue().sorted;
+                patterns.append(StepTracer.csvField(pattern.getKey())).append(',').append(pattern.getValue().count);
+                for (String metric : SUMMARIZED) {
+                    double[] sorted = metrics.get(metric);
+                    patterns.append(',').append(number(StepTracer.percentile(sorted, 50))).append(',').append(number(StepTracer.percentile(sorted, 90)));
+                }
+                patterns.append('\n');
+                logger.info("Pages " + pattern.getKey() + ": n=" + pattern.getValue().count
+                    + " network p50=" + number(StepTracer.percentile(metrics.get("networkMillis"), 50)) + "ms"
+                    + " page p50=" + number(StepTracer.percentile(metrics.get("pageMillis"), 50)) + "ms"
+                    + " script p50=" + number(StepTracer.percentile(metrics.get("scriptMillis"), 50)) + "ms");
+            }
+            StepTracer.writeAtomically(directory.resolve("patterns-" + runId + ".csv"), patterns.toString());
+            logger.info("Exported " + snapshot.size() + " page loads of run " + runId + " to " + directory);
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Could not export page performance to " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Navigation count and sorted values of each summarized metric per URL pattern; values the
+     * browser did not report are left out.
+     */
+    static Map<String, PatternSummary> byPattern(List<Navigation> navigations) {
+        Map<String, List<Navigation>> grouped = new TreeMap<>();
+        for (Navigation navigation : navigations) {
+            grouped.computeIfAbsent(navigation.pattern, p -> new ArrayList<>()).add(navigation);
+        }
+        Map<String, PatternSummary> result = new TreeMap<>();
+        for (Map.Entry<String, List<Navigation>> group : grouped.entrySet()) {
+            Map<String, double[]> metrics = new LinkedHashMap<>();
+            for (String metric : SUMMARIZED) {
+                double[] values = group.getValue().stream()
+                    .mapToDouble(navigation -> navigation.values.getOrDefault(metric, -1.0))
+                    .filter(value -> value >= 0)
+                    .sorted()
+                    .toArray();
+                metrics.put(metric, values);
+            }
+            result.put(group.getKey(), new PatternSummary(group.getValue().size(), metrics));
+        }
+        return result;
+    }
+
+    /**
+     * Groups URLs by page kind: product pages become {@code /dp/*}, search pages keep their
+     * path, and ASIN-like or numeric path segments and {@code ref=} segments become {@code *}.
+     * Query strings and hosts are dropped.
+     */
+    static String pattern(String url) {
+        String path;
+        try {
+            path = URI.create(url).getRawPath();
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        if (path.contains("/dp/") || path.contains("/gp/product/")) {
+            return "/dp/*";
+        }
+        String[] segments = path.split("/");
+        StringBuilder pattern = new StringBuilder();
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            boolean variable = segment.startsWith("ref=") || segment.matches("\\d+") || segment.matches("[A-Z0-9]{10}");
+            pattern.append('/').append(variable ? "*" : segment);
+        }
+        return pattern.length() == 0 ? "/" : pattern.toString();
+    }
+
+    private static Map<String, Double> counters(WebDriver driver) {
+        if (!(driver instanceof HasCdp)) {
+            return null;
+        }
+        try {
+            Map<String, Object> response = ((HasCdp) driver).executeCdpCommand("Performance.getMetrics", Collections.emptyMap());
+            Map<String, Double> counters = new TreeMap<>();
+            Object metrics = response.get("metrics");
+            if (metrics instanceof List) {
+                for (Object metric : (List<?>) metrics) {
+                    Map<?, ?> entry = (Map<?, ?>) metric;
+                    if (entry.get("value") instanceof Number) {
+                        counters.put(String.valueOf(entry.get("name")), ((Number) entry.get("value")).doubleValue());
+                    }
+                }
+            }
+            return counters;
+        } catch (RuntimeException e) {
+            logger.fine("Could not read DevTools performance metrics: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Change of a cumulative counter since the tab's previous capture; the raw value when the
+     * counter went down, because the navigation moved the tab to a new renderer.
+     */
+    private static double delta(Map<String, Double> counters, Map<String, Double> previous, String name) {
+        Double now = counters.get(name);
+        if (now == null) {
+            return -1;
+        }
+        Double before = previous == null ? null : previous.get(name);
+        return before == null || before > now ? now : now - before;
+    }
+
+    private static String number(Double value) {
+        return value == null || !(value >= 0) ? "" : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    static final class PatternSummary {
+        final int count;
+        final Map<String, double[]> sorted;
+
+        PatternSummary(int count, Map<String, double[]> sorted) {
+            this.count = count;
+            this.sorted = sorted;
+        }
+    }
+
+    static final class Navigation {
+        final long span;
+        final String task;
+        final String step;
+        final String url;
+        final String pattern;
+        final Map<String, Double> values;
+
+        Navigation(long span, String task, String step, String url, String pattern, Map<String, Double> values) {
+            this.span = span;
+            this.task = task;
+            this.step = step;
+            this.url = url;
+            this.pattern = pattern;
+            this.values = values;
+        }
+    }
+}
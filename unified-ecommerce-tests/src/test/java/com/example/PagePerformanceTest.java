@@ -0,0 +1,129 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * URL patterns, per-navigation counters and the per-pattern export of browser page timings
+ */
+public class PagePerformanceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void urlsCollapseToPagePatterns() {
+        assertEquals("/dp/*", PagePerformance.pattern("https://www.amazon.in/Some-Phone/dp/B0C1234567/ref=sr_1_3?keywords=x"));
+        assertEquals("/dp/*", PagePerformance.pattern("https://www.amazon.in/gp/product/B0C1234567"));
+        assertEquals("/s", PagePerformance.pattern("https://www.amazon.in/s?k=phone&rh=p_36"));
+        assertEquals("/orders/*/items", PagePerformance.pattern("http://localhost:8080/orders/1234/items"));
+        assertEquals("/cart/*", PagePerformance.pattern("http://localhost/cart/ref=nav_cart"));
+        assertEquals("/", PagePerformance.pattern("http://localhost"));
+    }
+
+    @Test
+    public void devToolsCountersAreReportedPerNavigation() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        PagePerformance performance = new PagePerformance(dir, "r1", 100);
+        performance.record("tab", page("http://localhost/s?k=a", 300, 200), counters(1.0, 10, 50_000_000));
+        performance.record("tab", page("http://localhost/s?k=b", 100, 400), counters(1.5, 14, 60_000_000));
+        // A lower counter means a fresh renderer; its value is taken as is
+        performance.record("tab", page("http://localhost/s?k=c", 100, 400), counters(0.2, 3, 40_000_000));
+        assertEquals(3, performance.navigationCount());
+        performance.export();
+
+        List<String> rows = Files.readAllLines(dir.resolve("navigations-r1.csv"), StandardCharsets.UTF_8);
+        assertEquals(4, rows.size());
+        List<String> header = StepTracer.parseCsvLine(rows.get(0));
+        int script = header.indexOf("scriptMillis");
+        int layouts = header.indexOf("layoutCount");
+        int heap = header.indexOf("jsHeapMb");
+        assertEquals("1000.0", StepTracer.parseCsvLine(rows.get(1)).get(script));
+        assertEquals("500.0", StepTracer.parseCsvLine(rows.get(2)).get(script));
+        assertEquals("4.0", StepTracer.parseCsvLine(rows.get(2)).get(layouts));
+        assertEquals("3.0", StepTracer.parseCsvLine(rows.get(3)).get(layouts));
+        assertEquals("/s", StepTracer.parseCsvLine(rows.get(3)).get(header.indexOf("pattern")));
+        assertEquals(String.format(Locale.ROOT, "%.1f", 60_000_000 / (1024.0 * 1024)),
+            StepTracer.parseCsvLine(rows.get(2)).get(heap));
+    }
+
+    @Test
+    public void forgottenSessionsAreEnabledAndDiffedAfresh() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        PagePerformance performance = new PagePerformance(dir, "r3", 100);
+        assertTrue(performance.firstUse("7|A"));
+        assertFalse(performance.firstUse("7|A"));
+        assertTrue(performance.firstUse("8|A"));
+        performance.record("7|A", page("http://localhost/s?k=a", 100, 100), counters(1.0, 10, 1));
+
+        performance.forgetDriver("7");
+        assertTrue("the next borrower enables the tab again", performance.firstUse("7|A"));
+        assertFalse("other sessions keep their state", performance.firstUse("8|A"));
+        performance.record("7|A", page("http://localhost/s?k=b", 100, 100), counters(1.5, 12, 1));
+        performance.export();
+
+        List<String> rows = Files.readAllLines(dir.resolve("navigations-r3.csv"), StandardCharsets.UTF_8);
+        List<String> header = StepTracer.parseCsvLine(rows.get(0));
+        assertEquals("not diffed against the previous borrower", "1500.0",
+            StepTracer.parseCsvLine(rows.get(2)).get(header.indexOf("scriptMillis")));
+    }
+
+    @Test
+    public void patternsSummarizeNetworkAndPageTimeSeparately() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        PagePerformance performance = new PagePerformance(dir, "r2", 100);
+        for (int i = 1; i <= 10; i++) {
+            performance.record("tab", page("https://shop.example/item/dp/B00000000" + (i % 10), 100 * i, 10 * i), null);
+        }
+        performance.record("tab", page("https://shop.example/s?k=x", 50, 900), null);
+        performance.export();
+
+        Map<String, List<String>> byPattern = new HashMap<>();
+        List<String> rows = Files.readAllLines(dir.resolve("patterns-r2.csv"), StandardCharsets.UTF_8);
+        List<String> header = StepTracer.parseCsvLine(rows.get(0));
+        for (String row : rows.subList(1, rows.size())) {
+            List<String> fields = StepTracer.parseCsvLine(row);
+            byPattern.put(fields.get(0), fields);
+        }
+        assertEquals(2, byPattern.size());
+        List<String> product = byPattern.get("/dp/*");
+        assertEquals("10", product.get(header.indexOf("count")));
+        assertEquals("500.0", product.get(header.indexOf("networkMillisP50")));
+        assertEquals("900.0", product.get(header.indexOf("networkMillisP90")));
+        assertEquals("50.0", product.get(header.indexOf("pageMillisP50")));
+        assertEquals("scripts were not measured", "", product.get(header.indexOf("scriptMillisP50")));
+        assertEquals("900.0", byPattern.get("/s").get(header.indexOf("pageMillisP50")));
+    }
+
+    private static Map<String, Object> page(String url, double networkMillis, double pageMillis) {
+        Map<String, Object> page = new HashMap<>();
+        page.put("url", url);
+        page.put("networkMillis", networkMillis);
+        page.put("pageMillis", pageMillis);
+        page.put("ttfbMillis", networkMillis / 2);
+        page.put("loadMillis", networkMillis + pageMillis);
+        page.put("longTaskMillis", 0L);
+        return page;
+    }
+
+    private static Map<String, Double> counters(double scriptSeconds, double layouts, double heapBytes) {
+        Map<String, Double> counters = new TreeMap<>();
+        counters.put("ScriptDuration", scriptSeconds);
+        counters.put("LayoutCount", layouts);
+        counters.put("JSHeapUsedSize", heapBytes);
+        return counters;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Condition-driven replacement for fixed {@code Thread.sleep} page waits.
+ * All configured conditions are evaluated together in one script execution per poll,
+ * and polling backs off from a few milliseconds up to {@link #MAX_POLL} until the deadline.
+ *
+ * <pre>
+ * PageReadiness.on(driver).urlChangedFrom(before).documentReady().selector(".s-result-item").await();
+ * </pre>
+ */
+public final class PageReadiness {
+
+    private static final Logger logger = Logger.getLogger(PageReadiness.class.getName());
+
+    public static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(15);
+    static final Duration MIN_POLL = Duration.ofMillis(25);
+    static final Duration MAX_POLL = Duration.ofMillis(500);
+    private static final double BACKOFF = 1.6;
+
+    // Installs a mutation observer once per document and records the time of the last DOM change
+    private static final String DOM_SETTLED =
+        "(function(q){var w=window;"
+        + "if(!w.__rdyMo){w.__rdyLast=performance.now();"
+        + "w.__rdyMo=new MutationObserver(function(){w.__rdyLast=performance.now();});"
+        + "w.__rdyMo.observe(document,{subtree:true,childList:true,attributes:true,characterData:true});}"
+        + "return performance.now()-w.__rdyLast>=q;})";
+
+    // Network is quiet once no resource has finished loading for the quiet period
+    private static final String NETWORK_QUIET =
+        "(function(q){var w=window,n=performance.getEntriesByType('resource').length,t=performance.now();"
+        + "if(w.__rdyNet===undefined||w.__rdyNet!==n){w.__rdyNet=n;w.__rdyNetAt=t;}"
+        + "return t-w.__rdyNetAt>=q;})";
+
+    private final WebDriver driver;
+    private final List<String> conditions = new ArrayList<>();
+    private final List<Object> args = new ArrayList<>();
+    private Duration deadline = DEFAULT_DEADLINE;
+
+    private PageReadiness(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    public static PageReadiness on(WebDriver driver) {
+        return new PageReadiness(driver);
+    }
+
+    /**
+     * Overall time budget for {@link #await()}.
+     */
+    public PageReadiness within(Duration deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    public PageReadiness documentReady() {
+        conditions.add("document.readyState==='complete'");
+        return this;
+    }
+
+    /**
+     * Ready once any element matches the selector list (comma-separated CSS is allowed).
+     */
+    public PageReadiness selector(String css) {
+        conditions.add("document.querySelector(arguments[" + addArg(css) + "])!==null");
+        return this;
+    }
+
+    public PageReadiness urlChangedFrom(String previousUrl) {
+        conditions.add("location.href!==arguments[" + addArg(previousUrl == null ? "" : previousUrl) + "]");
+        return this;
+    }
+
+    public PageReadiness networkQuiet(Duration quiet) {
+        conditions.add(NETWORK_QUIET + "(arguments[" + addArg(quiet.toMillis()) + "])");
+        return this;
+    }
+
+    public PageReadiness domSettled(Duration quiet) {
+        conditions.add(DOM_SETTLED + "(arguments[" + addArg(quiet.toMillis()) + "])");
+        return this;
+    }
+
+    /**
+     * Polls until every condition holds or the deadline passes.
+     *
+     * @return {@code true} when the page became ready, {@code false} on timeout
+     */
+    public boolean await() {
+        boolean ready = poll();
+        PageSnapshots.capture(driver);
+        if (ready) {
+            PagePerformance.capture(driver);
+        }
+        return ready;
+    }
+
+    private boolean poll() {
+        if (conditions.isEmpty()) {
+            return true;
+        }
+        String script = "try{return " + String.join("&&", conditions) + ";}catch(e){return false;}";
+        Object[] scriptArgs = args.toArray();
+
+        long started = System.nanoTime();
+        long deadlineNanos = started + deadline.toNanos();
+        long pollMillis = MIN_POLL.toMillis();
+        while (true) {
+            if (isReady(script, scriptArgs)) {
+                logger.fine("Page ready after " + elapsedMillis(started) + " ms");
+                return true;
+            }
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMillis <= 0) {
+                logger.info("Page not ready after " + elapsedMillis(started) + " ms, continuing anyway");
+                return false;
+            }
+            try {
+                Thread.sleep(Math.min(pollMillis, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            pollMillis = Math.min(MAX_POLL.toMillis(), (long) (pollMillis * BACKOFF));
+        }
+    }
+
+    private boolean isReady(String script, Object[] scriptArgs) {
+        try {
+            return Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript(script, scriptArgs));
+        } catch (Exception e) {
+            // The page is typically mid-navigation; treat as not ready yet
+            logger.fine("Readiness probe failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private int addArg(Object value) {
+        args.add(value);
+        return args.size() - 1;
+    }
+
+    private static long elapsedMillis(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+}
@@ -0,0 +1,268 @@
+package com.example;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.TypeToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Records the pages the suite visits so selector and parsing work can be replayed offline.
+ * <p>
+ * With {@code -Dsnapshots=capture} every {@link PageReadiness#await()} saves the rendered DOM of
+ * the current page under {@code -Dsnapshots.dir} (default {@code target/page-snapshots}) as
+ * {@code <task>/<NNN>-<step>.html}, named after the task and step spans open in {@link StepTracer}.
+ * Scripts, frames and external stylesheets are removed (readable stylesheet rules are inlined
+ * first) and same-site links are made relative, so the file renders the same DOM without any
+ * network. {@code index.json} lists every snapshot with its task, step and original URL;
+ * {@code -Dstorefront=replay} serves them through {@link SnapshotServer}.
+ */
+public final class PageSnapshots {
+
+    private static final Logger logger = Logger.getLogger(PageSnapshots.class.getName());
+
+    private static final boolean CAPTURING = "capture".equalsIgnoreCase(System.getProperty("snapshots"));
+
+    static final String INDEX_FILE = "index.json";
+
+    // Serializes the live DOM with every same-origin stylesheet rule inlined into one <style>
+    private static final String SERIALIZE =
+        "var css=[];for(var i=0;i<document.styleSheets.length;i++){try{var r=document.styleSheets[i].cssRules;"
+        + "for(var j=0;j<r.length;j++){css.push(r[j].cssText);}}catch(e){}}"
+        + "var d=document.doctype?'<!DOCTYPE '+document.doctype.name+'>':'';"
+        + "return [d+document.documentElement.outerHTML, css.join('\\n')];";
+
+    private static volatile PageSnapshots shared;
+
+    private final Path directory;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Integer> sequences = new HashMap<>();
+    private final Map<String, Long> lastHashByUrl = new HashMap<>();
+
+    PageSnapshots(Path directory) {
+        this.directory = directory;
+        this.entries.addAll(readIndex(directory));
+    }
+
+    public static PageSnapshots shared() {
+        PageSnapshots snapshots = shared;
+        if (snapshots == null) {
+            synchronized (PageSnapshots.class) {
+                snapshots = shared;
+                if (snapshots == null) {
+                    snapshots = new PageSnapshots(directory());
+                    shared = snapshots;
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    static Path directory() {
+        return Paths.get(System.getProperty("snapshots.dir", "target/page-snapshots"));
+    }
+
+    public static boolean isCapturing() {
+        return CAPTURING;
+    }
+
+    /**
+     * Saves the current page in capture mode; a no-op otherwise. Never throws.
+     */
+    public static void capture(WebDriver driver) {
+        if (!CAPTURING || !(driver instanceof JavascriptExecutor)) {
+            return;
+        }
+        try {
+            String url = driver.getCurrentUrl();
+            if (url == null || !url.startsWith("http")) {
+                return;
+            }
+            List<?> serialized = (List<?>) ((JavascriptExecutor) driver).executeScript(SERIALIZE);
+            shared().save(url, StepTracer.currentTask(), StepTracer.currentStep(),
+                String.valueOf(serialized.get(0)), String.valueOf(serialized.get(1)));
+        } catch (RuntimeException e) {
+            logger.warning("Could not capture page snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cleans and stores one page; identical consecutive captures of a URL are skipped.
+     *
+     * @return the stored entry, or {@code null} if the page was unchanged
+     */
+    synchronized Entry save(String url, String task, String step, String html, String inlineCss) {
+        String cleaned = clean(html, inlineCss, url);
+        long hash = PageCache.hash(cleaned);
+        Long previous = lastHashByUrl.put(url, hash);
+        if (previous != null && previous == hash) {
+            return null;
+        }
+        String taskDir = slug(task);
+        int sequence = sequences.merge(taskDir, 1, Integer::sum);
+        String file = taskDir + "/" + String.format("%03d", sequence) + "-" + slug(step) + ".html";
+        try {
+            Path path = directory.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.write(path, cleaned.getBytes(StandardCharsets.UTF_8));
+            Entry entry = new Entry(task, step, sequence, url, file, System.currentTimeMillis());
+            entries.removeIf(existing -> existing.file.equals(file));
+            entries.add(entry);
+            writeIndex();
+            logger.fine("Captured " + url + " as " + file);
+            return entry;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write page snapshot " + file, e);
+        }
+    }
+
+    public synchronized List<Entry> entries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    /**
+     * Static copy of a rendered page: scripts other than JSON-LD, frames and external
+     * stylesheets are dropped, readable rules are inlined, same-site URLs become relative.
+     */
+    static String clean(String html, String inlineCss, String url) {
+        Document page = Jsoup.parse(html, url);
+        page.select("script:not([type=application/ld+json]), noscript, iframe, base").remove();
+        page.select("link[rel~=(?i)^(stylesheet|preload|prefetch|modulepreload|dns-prefetch|preconnect)$]").remove();
+        if (inlineCss != null && !inlineCss.isEmpty()) {
+            page.head().appendElement("style").attr("data-snapshot", "inlined").appendChild(
+                new DataNode(inlineCss));
+        }
+        String host = URI.create(url).getHost();
+        for (Element element : page.select("a[href], form[action], area[href]")) {
+            String attribute = element.hasAttr("href") ? "href" : "action";
+            element.attr(attribute, relativeIfSameSite(element.absUrl(attribute), element.attr(attribute), host));
+        }
+        return page.outerHtml();
+    }
+
+    private static String relativeIfSameSite(String absolute, String original, String host) {
+        if (absolute.isEmpty()) {
+            return original;
+        }
+        try {
+            URI uri = URI.create(absolute);
+            if (host != null && host.equalsIgnoreCase(uri.getHost())) {
+                return (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+                    + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery())
+                    + (uri.getRawFragment() == null ? "" : "#" + uri.getRawFragment());
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a parseable URL; keep it as written
+        }
+        return original;
+    }
+
+    static String slug(String text) {
+        String slug = (text == null ? "" : text).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-")
+            .replaceAll("^-+|-+$", "");
+        if (slug.isEmpty()) {
+            return "page";
+        }
+        return slug.length() > 60 ? slug.substring(0, 60) : slug;
+    }
+
+    private void writeIndex() throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Entry entry : entries) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("task", entry.task);
+            row.put("step", entry.step);
+            row.put("sequence", entry.sequence);
+            row.put("url", entry.url);
+            row.put("file", entry.file);
+            row.put("capturedAt", entry.capturedAt);
+            rows.add(row);
+        }
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        Files.write(temp, new Json().toJson(rows).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Entries of a snapshot directory, oldest first; empty if there is no index yet.
+     */
+    static List<Entry> readIndex(Path directory) {
+        Path index = directory.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(index)) {
+            return new ArrayList<>();
+        }
+        try {
+            List<Map<String, Object>> rows = new Json().toType(
+                new String(Files.readAllBytes(index), StandardCharsets.UTF_8),
+                new TypeToken<List<Map<String, Object>>>() { }.getType());
+            List<Entry> entries = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                entries.add(new Entry(String.valueOf(row.get("task")), String.valueOf(row.get("step")),
+                    ((Number) row.get("sequence")).intValue(), String.valueOf(row.get("url")),
+                    String.valueOf(row.get("file")), ((Number) row.get("capturedAt")).longValue()));
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read snapshot index " + index, e);
+        }
+    }
+
+    /**
+     * One captured page.
+     */
+    public static final class Entry {
+        final String task;
+        final String step;
+        final int sequence;
+        final String url;
+        final String file;
+        final long capturedAt;
+
+        Entry(String task, String step, int sequence, String url, String file, long capturedAt) {
+            this.task = task;
+            this.step = step;
+            this.sequence = sequence;
+            this.url = url;
+            this.file = file;
+            this.capturedAt = capturedAt;
+        }
+
+        public String task() {
+            return task;
+        }
+
+        public String step() {
+            return step;
+        }
+
+        public String url() {
+            return url;
+        }
+
+        /** Path of the snapshot relative to the snapshot directory. */
+        public String file() {
+            return file;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Snapshot cleaning, the task/step index and offline replay
+ */
+public class PageSnapshotsTest {
+
+    private static final String SEARCH_PAGE = "<!DOCTYPE html><html><head>"
+        + "<link rel='stylesheet' href='https://m.media-amazon.com/images/I/site.css'>"
+        + "<script src='https://m.media-amazon.com/images/I/app.js'></script></head><body>"
+        + "<script>window.ue = 1;</script><iframe src='https://ads.example/'></iframe>"
+        + "<form action='https://www.amazon.in/s'><input name='k'></form>"
+        + "<div class='s-result-item'><a href='https://www.amazon.in/dp/B0SF000001?ref=sr_1'>Oak Shelf</a>"
+        + "<a href='https://other.example/x'>elsewhere</a><span class='a-price'>&#8377;1,299</span></div>"
+        + "<script type='application/ld+json'>{\"@type\":\"Product\"}</script></body></html>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void cleaningRemovesScriptsAndKeepsTheDomOffline() {
+        String cleaned = PageSnapshots.clean(SEARCH_PAGE, ".a-offscreen{position:absolute}", "https://www.amazon.in/s?k=shelf");
+
+        assertFalse(cleaned.contains("app.js"));
+        assertFalse(cleaned.contains("window.ue"));
+        assertFalse(cleaned.contains("<iframe"));
+        assertFalse(cleaned.contains("site.css"));
+        assertTrue(cleaned.contains("application/ld+json"));
+        assertTrue(cleaned.contains(".a-offscreen{position:absolute}"));
+        assertTrue(cleaned.contains("href=\"/dp/B0SF000001?ref=sr_1\""));
+        assertTrue(cleaned.contains("action=\"/s\""));
+        assertTrue(cleaned.contains("href=\"https://other.example/x\""));
+        assertTrue(cleaned.contains("s-result-item"));
+    }
+
+    @Test
+    public void capturesAreIndexedByTaskAndStepAndReplayedOffline() throws IOException, InterruptedException {
+        Path dir = folder.getRoot().toPath();
+        PageSnapshots snapshots = new PageSnapshots(dir);
+        assertNotNull(snapshots.save("https://www.amazon.in/s?k=shelf&crid=1", "Task 1 - Product Selection",
+            "search-submit", SEARCH_PAGE, ""));
+        assertNull("identical page is not stored twice", snapshots.save("https://www.amazon.in/s?k=shelf&crid=1",
+            "Task 1 - Product Selection", "search-submit", SEARCH_PAGE, ""));
+        snapshots.save("https://www.amazon.in/dp/B0SF000001?ref=sr_1", "Task 1 - Product Selection", "click",
+            "<html><body><span id='productTitle'>Oak Shelf</span></body></html>", "");
+
+        List<PageSnapshots.Entry> entries = PageSnapshots.readIndex(dir);
+        assertEquals(2, entries.size());
+        assertEquals("task-1-product-selection/001-search-submit.html", entries.get(0).file());
+        assertEquals("click", entries.get(1).step());
+
+        try (SnapshotServer server = SnapshotServer.start(0, dir)) {
+            HttpClient client = HttpClient.newHttpClient();
+            assertTrue(get(client, server.baseUrl() + "s?k=shelf&crid=1").body().contains("Oak Shelf"));
+            // different tracking parameters, same keywords
+            assertTrue(get(client, server.baseUrl() + "s?k=shelf&crid=XYZ&sprefix=sh").body().contains("s-result-item"));
+            assertTrue(get(client, server.baseUrl() + "dp/B0SF000001").body().contains("productTitle"));
+            assertEquals(404, get(client, server.baseUrl() + "cart").statusCode());
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, String url) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
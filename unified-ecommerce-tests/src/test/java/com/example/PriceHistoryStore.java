@@ -0,0 +1,366 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Append-only price time series on memory-mapped segment files, one series per product.
+ * <p>
+ * Every segment file holds a 32-byte header (magic, record count, min and max price) followed by
+ * fixed-width 16-byte records ({@code long} epoch millis, {@code double} price). Segments are
+ * named {@code <series>.<n>.seg} and fill up in order, so timestamps are sorted within and across
+ * segments. Queries binary-search into the mapped records and read primitives in place; min/max
+ * rollups use the segment headers for segments that lie entirely inside the requested range.
+ * Only a bounded number of segments is mapped at a time, so the heap does not grow with the
+ * number of tracked products.
+ */
+public final class PriceHistoryStore implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(PriceHistoryStore.class.getName());
+
+    private static final int MAGIC = 0x50485331; // "PHS1"
+    private static final int COUNT_OFFSET = 4;
+    private static final int MIN_OFFSET = 8;
+    private static final int MAX_OFFSET = 16;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 16;
+
+    /** One week of minute-resolution samples per segment. */
+    static final int DEFAULT_SEGMENT_RECORDS = 10_080;
+    static final int DEFAULT_OPEN_SEGMENTS = 256;
+
+    private static volatile PriceHistoryStore shared;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final Map<Path, MappedByteBuffer> openSegments;
+    private final Map<String, Integer> tailSegments;
+
+    PriceHistoryStore(Path directory, int segmentRecords, int maxOpenSegments) {
+        if (segmentRecords < 1 || maxOpenSegments < 1) {
+            throw new IllegalArgumentException("segmentRecords and maxOpenSegments must be positive");
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.openSegments = new LinkedHashMap<Path, MappedByteBuffer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, MappedByteBuffer> eldest) {
+                if (size() > maxOpenSegments) {
+                    eldest.getValue().force();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.tailSegments = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > maxOpenSegments * 16;
+            }
+        };
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create price history directory " + directory, e);
+        }
+    }
+
+    /**
+     * Process-wide store in {@code -Dprice.history.dir} (default {@code target/price-history}),
+     * flushed when the JVM exits. {@code -Dprice.history.openSegments} bounds the mapped segments.
+     */
+    public static PriceHistoryStore shared() {
+        PriceHistoryStore store = shared;
+        if (store == null) {
+            synchronized (PriceHistoryStore.class) {
+                store = shared;
+                if (store == null) {
+                    Path dir = Paths.get(System.getProperty("price.history.dir", "target/price-history"));
+                    store = new PriceHistoryStore(dir, DEFAULT_SEGMENT_RECORDS,
+                        Integer.getInteger("price.history.openSegments", DEFAULT_OPEN_SEGMENTS));
+                    Runtime.getRuntime().addShutdownHook(new Thread(store::close, "price-history-flush"));
+                    shared = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Series key for a product page: the ASIN of {@code /dp/} and {@code /gp/product/} URLs,
+     * otherwise the URL itself.
+     */
+    public static String seriesKey(String productUrl) {
+        for (String marker : new String[] {"/dp/", "/gp/product/"}) {
+            int start = productUrl.indexOf(marker);
+            if (start >= 0) {
+                start += marker.length();
+                int end = start;
+                while (end < productUrl.length() && Character.isLetterOrDigit(productUrl.charAt(end))) {
+                    end++;
+                }
+                if (end > start) {
+                    return productUrl.substring(start, end);
+                }
+            }
+        }
+        return productUrl;
+    }
+
+    /**
+     * Appends one observation. Timestamps must not go backwards within a series.
+     */
+    public synchronized void append(String key, long epochMillis, double price) {
+        int tail = tailSegment(key);
+        MappedByteBuffer segment = segment(key, tail, true);
+        int count = segment.getInt(COUNT_OFFSET);
+        if (count > 0 && epochMillis < timestamp(segment, count - 1)) {
+            throw new IllegalArgumentException("Observation at " + epochMillis + " is older than the last one for " + key);
+        }
+        if (count == segmentRecords) {
+            tail++;
+            tailSegments.put(key, tail);
+            segment = segment(key, tail, true);
+            count = 0;
+        }
+        int offset = HEADER_BYTES + count * RECORD_BYTES;
+        segment.putLong(offset, epochMillis);
+        segment.putDouble(offset + 8, price);
+        if (count == 0 || price < segment.getDouble(MIN_OFFSET)) {
+            segment.putDouble(MIN_OFFSET, price);
+        }
+        if (count == 0 || price > segment.getDouble(MAX_OFFSET)) {
+            segment.putDouble(MAX_OFFSET, price);
+        }
+        // count last, so a reader never sees a record that is not fully written
+        segment.putInt(COUNT_OFFSET, count + 1);
+    }
+
+    public synchronized long count(String key) {
+        long total = 0;
+        for (int n = 0; ; n++) {
+            MappedByteBuffer segment = segment(key, n, false);
+            if (segment == null) {
+                return total;
+            }
+            total += segment.getInt(COUNT_OFFSET);
+        }
+    }
+
+    /**
+     * Visits observations with {@code from <= timestamp < to}, oldest first.
+     */
+    public synchronized void range(String key, long from, long to, Visitor visitor) {
+        for (int n = 0; ; n++) {
+            MappedByteBuffer segment = segment(key, n, false);
+            if (segment == null) {
+                return;
+            }
+            int count = segment.getInt(COUNT_OFFSET);
+            if (count == 0 || timestamp(segment, count - 1) < from) {
+                continue;
+            }
+            for (int i = lowerBound(segment, count, from); i < count; i++) {
+                long timestamp = timestamp(segment, i);
+                if (timestamp >= to) {
+                    return;
+                }
+                visitor.accept(timestamp, price(segment, i));
+            }
+        }
+    }
+
+    /** Lowest price with {@code from <= timestamp < to}, or {@code NaN}. */
+    public synchronized double min(String key, long from, long to) {
+        return rollup(key, from, to, true);
+    }
+
+    /** Highest price with {@code from <= timestamp < to}, or {@code NaN}. */
+    public synchronized double max(String key, long from, long to) {
+        return rollup(key, from, to, false);
+    }
+
+    /**
+     * Visits the latest {@code n} observations, oldest first.
+     */
+    public synchronized void last(String key, int n, Visitor visitor) {
+        int segments = 0;
+        while (segment(key, segments, false) != null) {
+            segments++;
+        }
+        int first = segments;
+        int skip = 0;
+        long remaining = n;
+        while (first > 0 && remaining > 0) {
+            first--;
+            int count = segment(key, first, false).getInt(COUNT_OFFSET);
+            skip = (int) Math.max(0, count - remaining);
+            remaining -= count - skip;
+        }
+        for (int s = first; s < segments; s++) {
+            MappedByteBuffer segment = segment(key, s, false);
+            int count = segment.getInt(COUNT_OFFSET);
+            for (int i = s == first ? skip : 0; i < count; i++) {
+                visitor.accept(timestamp(segment, i), price(segment, i));
+            }
+        }
+    }
+
+    /** Most recent price of the series, or {@code NaN}. */
+    public double latest(String key) {
+        double[] latest = {Double.NaN};
+        last(key, 1, (timestamp, price) -> latest[0] = price);
+        return latest[0];
+    }
+
+    @Override
+    public synchronized void close() {
+        for (MappedByteBuffer segment : openSegments.values()) {
+            segment.force();
+        }
+        openSegments.clear();
+        tailSegments.clear();
+    }
+
+    private double rollup(String key, long from, long to, boolean lowest) {
+        double result = Double.NaN;
+        for (int n = 0; ; n++) {
+            MappedByteBuffer segment = segment(key, n, false);
+            if (segment == null) {
+                return result;
+            }
+            int count = segment.getInt(COUNT_OFFSET);
+            if (count == 0) {
+                continue;
+            }
+            long first = timestamp(segment, 0);
+            long last = timestamp(segment, count - 1);
+            if (last < from) {
+                continue;
+            }
+            if (first >= to) {
+                return result;
+            }
+            double candidate;
+            if (first >= from && last < to) {
+                candidate = segment.getDouble(lowest ? MIN_OFFSET : MAX_OFFSET);
+            } else {
+                candidate = Double.NaN;
+                for (int i = lowerBound(segment, count, from); i < count && timestamp(segment, i) < to; i++) {
+                    double price = price(segment, i);
+                    if (Double.isNaN(candidate) || (lowest ? price < candidate : price > candidate)) {
+                        candidate = price;
+                    }
+                }
+            }
+            if (Double.isNaN(result) || (lowest ? candidate < result : candidate > result)) {
+                result = candidate;
+            }
+        }
+    }
+
+    private int tailSegment(String key) {
+        Integer tail = tailSegments.get(key);
+        if (tail == null) {
+            int n = 0;
+            while (Files.exists(segmentPath(key, n + 1))) {
+                n++;
+            }
+            tail = n;
+            tailSegments.put(key, tail);
+        }
+        return tail;
+    }
+
+    private MappedByteBuffer segment(String key, int n, boolean create) {
+        Path path = segmentPath(key, n);
+        MappedByteBuffer segment = openSegments.get(path);
+        if (segment != null) {
+            return segment;
+        }
+        boolean exists = Files.exists(path);
+        if (!exists && !create) {
+            return null;
+        }
+        long size = HEADER_BYTES + (long) segmentRecords * RECORD_BYTES;
+        try (FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (exists && channel.size() != size) {
+                throw new IllegalStateException("Segment " + path + " has " + channel.size()
+                    + " bytes, expected " + size + " for " + segmentRecords + " records");
+            }
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map price history segment " + path, e);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        if (!exists) {
+            segment.putInt(0, MAGIC);
+        } else if (segment.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a price history segment: " + path);
+        }
+        openSegments.put(path, segment);
+        logger.fine("Mapped price history segment " + path);
+        return segment;
+    }
+
+    private Path segmentPath(String key, int n) {
+        return directory.resolve(String.format("%s.%04d.seg", seriesName(key), n));
+    }
+
+    /**
+     * File-system safe series name: the readable part of the key plus a 64-bit FNV-1a hash.
+     */
+    private static String seriesName(String key) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < key.length() && name.length() < 48; i++) {
+            char c = key.charAt(i);
+            name.append(Character.isLetterOrDigit(c) && c < 128 ? c : '_');
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return name.append('-').append(Long.toHexString(hash)).toString();
+    }
+
+    private static int lowerBound(MappedByteBuffer segment, int count, long from) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamp(segment, mid) < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long timestamp(MappedByteBuffer segment, int index) {
+        return segment.getLong(HEADER_BYTES + index * RECORD_BYTES);
+    }
+
+    private static double price(MappedByteBuffer segment, int index) {
+        return segment.getDouble(HEADER_BYTES + index * RECORD_BYTES + 8);
+    }
+
+    /**
+     * Receives observations as primitives, so queries allocate nothing per record.
+     */
+    public interface Visitor {
+        void accept(long epochMillis, double price);
+    }
+}
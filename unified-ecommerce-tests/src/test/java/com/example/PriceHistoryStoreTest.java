@@ -0,0 +1,74 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Segment rollover, range queries and rollups of the memory-mapped price history
+ */
+public class PriceHistoryStoreTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void queriesSpanSegmentsAndSurviveReopening() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (PriceHistoryStore store = new PriceHistoryStore(dir, 4, 2)) {
+            double[] prices = {59.99, 57.49, 61.00, 55.25, 58.00, 54.10, 60.75, 56.30, 53.95, 62.40};
+            for (int i = 0; i < prices.length; i++) {
+                store.append("B08N5WRWNW", 1_000L * i, prices[i]);
+            }
+            store.append("B0OTHER001", 0, 1.0);
+        }
+
+        try (PriceHistoryStore store = new PriceHistoryStore(dir, 4, 2)) {
+            assertEquals(10, store.count("B08N5WRWNW"));
+            assertEquals(1, store.count("B0OTHER001"));
+            assertEquals(0, store.count("missing"));
+
+            List<Double> range = new ArrayList<>();
+            store.range("B08N5WRWNW", 3_000, 7_000, (timestamp, price) -> range.add(price));
+            assertEquals(Arrays.asList(55.25, 58.00, 54.10, 60.75), range);
+
+            assertEquals(53.95, store.min("B08N5WRWNW", Long.MIN_VALUE, Long.MAX_VALUE), DELTA);
+            assertEquals(62.40, store.max("B08N5WRWNW", Long.MIN_VALUE, Long.MAX_VALUE), DELTA);
+            assertEquals(54.10, store.min("B08N5WRWNW", 1_000, 6_000), DELTA);
+            assertEquals(61.00, store.max("B08N5WRWNW", 1_000, 6_000), DELTA);
+            assertTrue(Double.isNaN(store.min("B08N5WRWNW", 20_000, 30_000)));
+
+            List<Long> last = new ArrayList<>();
+            store.last("B08N5WRWNW", 6, (timestamp, price) -> last.add(timestamp));
+            assertEquals(Arrays.asList(4_000L, 5_000L, 6_000L, 7_000L, 8_000L, 9_000L), last);
+            assertEquals(62.40, store.latest("B08N5WRWNW"), DELTA);
+
+            store.append("B08N5WRWNW", 10_000, 52.00);
+            assertEquals(52.00, store.min("B08N5WRWNW", Long.MIN_VALUE, Long.MAX_VALUE), DELTA);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsObservationsOlderThanTheTail() throws Exception {
+        try (PriceHistoryStore store = new PriceHistoryStore(folder.getRoot().toPath(), 4, 2)) {
+            store.append("B08N5WRWNW", 5_000, 10.0);
+            store.append("B08N5WRWNW", 4_000, 11.0);
+        }
+    }
+
+    @Test
+    public void seriesKeyIsTheAsinOfProductUrls() {
+        assertEquals("B08N5WRWNW", PriceHistoryStore.seriesKey("https://www.amazon.com/dp/B08N5WRWNW?th=1"));
+        assertEquals("B07XJ8C8F5", PriceHistoryStore.seriesKey("https://www.amazon.in/gp/product/B07XJ8C8F5/ref=x"));
+        assertEquals("https://example.com/item", PriceHistoryStore.seriesKey("https://example.com/item"));
+    }
+}
@@ -1,21 +1,12 @@
 package com.example;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.WebDriverWait;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 
-import java.time.Duration;
 import java.util.List;
-import java.util.Properties;
-import java.util.logging.Level;
+import java.util.Locale;
 import java.util.logging.Logger;
-import javax.mail.*;
-import javax.mail.internet.*;
 
 /**
  * PriceMonitor class for tracking product prices and sending email notifications
@@ -26,36 +17,121 @@ public class PriceMonitor {
     private static final Logger logger = Logger.getLogger(PriceMonitor.class.getName());
 
     private WebDriver driver;
-    private WebDriverWait wait;
     private String productUrl;
-    private double thresholdPrice;
+    private final PriceRuleEngine rules;
+    private final String productKey;
+    private final boolean ownsDriver;
+    private final PriceParser.ParsedPrice parsedPrice = new PriceParser.ParsedPrice();
+    private FetchMode fetchMode = FetchMode.fromSystemProperty();
+    private HttpPriceFetcher httpFetcher;
+    private PriceHistoryStore history;
+    private SelectorRegistry selectors;
+    private boolean pageUnchanged;
 
+    static final String PRICE_READY = ".a-price .a-offscreen, #priceblock_ourprice, #priceblock_dealprice, #productTitle";
+
+    /** Price selectors, shared by the browser and the HTTP path. */
+    static final String[] PRICE_SELECTORS = {
+        ".a-price .a-offscreen",
+        "#priceblock_ourprice",
+        "#priceblock_dealprice",
+        ".a-color-price",
+        "[data-cy='price-recipe']"
+    };
+
+    static final ResourceBlocker.Profile NETWORK_PROFILE =
+        ResourceBlocker.Profile.fromSystemProperty("network.profile.monitor", "lean");
+
+    /** Re-arm margin for threshold monitors: the price must recover 2% above the threshold. */
+    private static final double DEFAULT_REARM_PERCENT = 2.0;
+
+    /**
+     * How a check loads the product page. {@code -Dmonitor.fetchMode} sets the default (AUTO).
+     */
+    public enum FetchMode {
+        /** Always load the page in the pooled browser. */
+        BROWSER,
+        /** Only use the browserless HTTP fetch. */
+        HTTP,
+        /** Try the HTTP fetch first and fall back to the browser when it finds no price. */
+        AUTO;
+
+        static FetchMode fromSystemProperty() {
+            return valueOf(System.getProperty("monitor.fetchMode", "AUTO").trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Creates a monitor that borrows its browser session from {@link DriverPool#monitors()}
+     * the first time a price check needs one.
+     */
     public PriceMonitor(String productUrl, double thresholdPrice) {
-        this.productUrl = productUrl;
-        this.thresholdPrice = thresholdPrice;
+        this(productUrl, thresholdRule(thresholdPrice), null, true);
+    }
+
+    /**
+     * Creates a monitor on a session the caller already holds; {@link #close()} leaves it open.
+     */
+    public PriceMonitor(String productUrl, double thresholdPrice, WebDriver driver) {
+        this(productUrl, thresholdRule(thresholdPrice), driver, false);
+    }
 
-        // Setup WebDriver
-        WebDriverManager.chromedriver().setup();
-        ChromeOptions options = new ChromeOptions();
-        options.addArguments("--headless", "--disable-gpu", "--window-size=1920,1080", "--no-sandbox");
-        driver = new ChromeDriver(options);
-        wait = new WebDriverWait(driver, Duration.ofSeconds(30));
+    /**
+     * Creates a pool-backed monitor that alerts on the transitions of the given rule.
+     */
+    public PriceMonitor(String productUrl, PriceRuleEngine.Rule rule) {
+        this(productUrl, rule, null, true);
+    }
+
+    public PriceMonitor(String productUrl, PriceRuleEngine.Rule rule, WebDriver driver) {
+        this(productUrl, rule, driver, false);
+    }
+
+    private PriceMonitor(String productUrl, PriceRuleEngine.Rule rule, WebDriver driver, boolean ownsDriver) {
+        this.productUrl = productUrl;
+        this.rules = new PriceRuleEngine(rule);
+        this.productKey = PriceHistoryStore.seriesKey(productUrl);
+        this.driver = driver;
+        this.ownsDriver = ownsDriver;
 
         logger.info("PriceMonitor initialized for product: " + productUrl);
     }
 
-    public void checkPrice() {
+    public String productUrl() {
+        return productUrl;
+    }
+
+    public PriceMonitor withFetchMode(FetchMode fetchMode) {
+        this.fetchMode = fetchMode;
+        return this;
+    }
+
+    /**
+     * Fetches the current price, records it and evaluates the alert rule.
+     *
+     * @return the observed price, or 0.0 when none could be read
+     */
+    public double checkPrice() {
+        double currentPrice = 0.0;
         try {
             logger.info("Checking price for product...");
-            driver.get(productUrl);
-            Thread.sleep(3000);
+            currentPrice = fetchPrice();
+            logger.info("Current price: $" + currentPrice + ", Rule: " + rules.rule());
+            long observedAt = System.currentTimeMillis();
+            recordHistory(observedAt, currentPrice);
 
-            double currentPrice = extractPrice();
-            logger.info("Current price: $" + currentPrice + ", Threshold: $" + thresholdPrice);
-
-            if (currentPrice > 0 && currentPrice <= thresholdPrice) {
+            if (pageUnchanged && rules.isSettled(productKey)) {
+                logger.info("Price region unchanged since the last check; skipping rule evaluation.");
+                return currentPrice;
+            }
+            PriceRuleEngine.Event event = rules.observe(productKey, observedAt, currentPrice);
+            if (event == PriceRuleEngine.Event.TRIGGERED) {
                 logger.info("Price drop detected! Sending notification...");
                 sendEmailNotification("Price Drop Alert!", "Product price has dropped to $" + currentPrice);
+            } else if (event == PriceRuleEngine.Event.REARMED) {
+                logger.info("Price recovered above the re-arm level; the next drop will notify again.");
+            } else if (rules.isTriggered(productKey)) {
+                logger.info("Price still below the alert level; already notified.");
             } else {
                 logger.info("No price drop detected.");
             }
@@ -63,39 +139,122 @@ public class PriceMonitor {
         } catch (Exception e) {
             logger.severe("Error checking price: " + e.getMessage());
         }
+        return currentPrice;
+    }
+
+    /** Highest price that would currently alert, or {@code NaN} if not known yet. */
+    public double triggerLevel() {
+        return rules.triggerLevel(productKey);
+    }
+
+    /**
+     * Appends the observation to the product's series in the {@link PriceHistoryStore}.
+     */
+    private void recordHistory(long observedAt, double currentPrice) {
+        if (currentPrice <= 0) {
+            return;
+        }
+        try {
+            PriceHistoryStore history = this.history == null ? PriceHistoryStore.shared() : this.history;
+            history.append(productKey, observedAt, currentPrice);
+            logger.fine("Recorded $" + currentPrice + " in the price history of " + productKey);
+        } catch (RuntimeException e) {
+            logger.warning("Could not record price history: " + e.getMessage());
+        }
+    }
+
+    private static PriceRuleEngine.Rule thresholdRule(double thresholdPrice) {
+        return PriceRuleEngine.Rule.atOrBelow(thresholdPrice).rearmAbove(DEFAULT_REARM_PERCENT);
+    }
+
+    /** Uses {@code fetcher} instead of the shared {@link HttpPriceFetcher}. */
+    PriceMonitor withHttpFetcher(HttpPriceFetcher fetcher) {
+        this.httpFetcher = fetcher;
+        return this;
+    }
+
+    /** Records observations in {@code history} instead of the shared {@link PriceHistoryStore}. */
+    PriceMonitor withHistory(PriceHistoryStore history) {
+        this.history = history;
+        return this;
+    }
+
+    /** Orders price selectors with {@code selectors} instead of the shared {@link SelectorRegistry}. */
+    PriceMonitor withSelectorRegistry(SelectorRegistry selectors) {
+        this.selectors = selectors;
+        return this;
+    }
+
+    private SelectorRegistry selectors() {
+        return selectors == null ? SelectorRegistry.shared() : selectors;
+    }
+
+    /**
+     * Reads the price over plain HTTP when the fetch mode allows it, loading the page in the
+     * browser only when that finds nothing (or in {@link FetchMode#BROWSER} mode).
+     */
+    private double fetchPrice() {
+        pageUnchanged = false;
+        if (fetchMode != FetchMode.BROWSER) {
+            HttpPriceFetcher fetcher = httpFetcher == null ? HttpPriceFetcher.shared() : httpFetcher;
+            HttpPriceFetcher.Result result = fetcher.fetch(productUrl,
+                selectors().chain("monitor.price.http", PRICE_SELECTORS));
+            if (result.found()) {
+                logger.info("Extracted price over HTTP: $" + result.amount() + " " + result.currency()
+                    + " from " + result.source() + (result.unchanged() ? " (unchanged)" : ""));
+                pageUnchanged = result.unchanged();
+                return result.amount();
+            }
+            if (fetchMode == FetchMode.HTTP) {
+                logger.warning("HTTP price fetch failed: " + result.failure());
+                return 0.0;
+            }
+            logger.info("HTTP price fetch failed (" + result.failure() + "); loading the page in the browser");
+        }
+        return CommandMetrics.shared().measure("Browser price check " + productKey, () -> {
+            ensureDriver();
+            driver.get(productUrl);
+            PageReadiness.on(driver).documentReady().selector(PRICE_READY).await();
+            double price = extractPrice();
+            ResourceBlocker.report(driver);
+            return price;
+        });
+    }
+
+    private void ensureDriver() {
+        if (driver == null) {
+            driver = DriverPool.monitors().borrow();
+            ResourceBlocker.apply(driver, NETWORK_PROFILE);
+            PagePerformance.enable(driver);
+        }
     }
 
     private double extractPrice() {
+        return extractPrice(driver, selectors().chain("monitor.price", PRICE_SELECTORS), parsedPrice);
+    }
+
+    /**
+     * Reads the price from the page currently loaded in {@code driver}, trying the selectors in
+     * learned order; 0.0 when none matches.
+     */
+    static double extractPrice(WebDriver driver, SelectorRegistry.Chain selectors, PriceParser.ParsedPrice parsedPrice) {
         try {
-            String[] selectors = {
-                ".a-price .a-offscreen",
-                "#priceblock_ourprice",
-                "#priceblock_dealprice",
-                ".a-color-price",
-                "[data-cy='price-recipe']"
-            };
-
-            for (String selector : selectors) {
+            for (String selector : selectors.ordered()) {
                 List<WebElement> priceElements = driver.findElements(By.cssSelector(selector));
                 for (WebElement priceElement : priceElements) {
                     String priceText = priceElement.getText().trim();
                     logger.fine("Found price text: '" + priceText + "' with selector: " + selector);
                     if (!priceText.isEmpty()) {
-                        String cleanPrice = priceText.replaceAll("[^0-9.,]", "");
-                        if (cleanPrice.contains(",")) {
-                            cleanPrice = cleanPrice.replace(",", "");
-                        }
-                        try {
-                            double price = Double.parseDouble(cleanPrice);
-                            if (price > 0) {
-                                logger.info("Extracted price: $" + price);
-                                return price;
-                            }
-                        } catch (Exception e) {
-                            logger.warning("Could not parse price: " + cleanPrice);
+                        if (!PriceParser.parse(priceText, parsedPrice)) {
+                            logger.warning("Could not parse price: " + priceText);
+                        } else if (parsedPrice.amount() > 0) {
+                            selectors.hit(selector);
+                            logger.info("Extracted price: " + parsedPrice);
+                            return parsedPrice.amount();
                         }
                     }
                 }
+                selectors.miss(selector);
             }
         } catch (Exception e) {
             logger.warning("Could not extract price: " + e.getMessage());
@@ -103,44 +262,25 @@ public class PriceMonitor {
         return 0.0;
     }
 
+    /**
+     * Queues the alert on the shared {@link NotificationDispatcher}; delivery happens in the
+     * background, so a slow or failing SMTP server never stalls or fails a price check.
+     */
     public void sendEmailNotification(String subject, String message) {
-        // Note: This is a demo implementation with placeholder credentials
-        // In a real application, use secure credential management
-        final String fromEmail = "your-email@gmail.com"; // Replace with actual email
-        final String password = "your-app-password"; // Replace with app password
-        final String toEmail = "recipient@example.com"; // Replace with recipient
-
-        Properties props = new Properties();
-        props.put("mail.smtp.host", "smtp.gmail.com");
-        props.put("mail.smtp.port", "587");
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-
-        Session session = Session.getInstance(props, new javax.mail.Authenticator() {
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(fromEmail, password);
-            }
-        });
-
-        try {
-            Message msg = new MimeMessage(session);
-            msg.setFrom(new InternetAddress(fromEmail));
-            msg.setRecipients(Message.RecipientType.TO, InternetAddress.parse(toEmail));
-            msg.setSubject(subject);
-            msg.setText(message + "\n\nProduct URL: " + productUrl);
-
-            Transport.send(msg);
-            logger.info("Email notification sent successfully");
-
-        } catch (MessagingException e) {
-            logger.severe("Failed to send email notification: " + e.getMessage());
-            throw new RuntimeException("Email sending failed", e);
+        if (NotificationDispatcher.shared().submit(subject, message + "\n\nProduct URL: " + productUrl)) {
+            logger.info("Email notification queued");
+        } else {
+            logger.warning("Email notification dropped: " + subject);
         }
     }
 
+    /**
+     * Returns a pooled session to {@link DriverPool#monitors()}; the next browser check borrows again.
+     */
     public void close() {
-        if (driver != null) {
-            driver.quit();
+        if (driver != null && ownsDriver) {
+            DriverPool.monitors().release(driver);
+            driver = null;
         }
     }
 }
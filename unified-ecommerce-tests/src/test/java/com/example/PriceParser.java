@@ -0,0 +1,238 @@
+package com.example;
+
+/**
+ * Single-pass price parser for the text of price elements, cart subtotals and page source.
+ * Scans the characters in place without building intermediate strings or throwing, and
+ * understands {@code ₹}/{@code Rs}/{@code INR} and {@code $}/{@code USD} markers, Indian
+ * lakh grouping ({@code ₹1,23,456.00}), decimal-comma locales ({@code 1.234,56}) and
+ * non-breaking-space grouping.
+ * <p>
+ * When the text holds several numbers the first one with a currency marker wins
+ * ({@code "Subtotal (2 items): $119.98"} is 119.98), otherwise the first number.
+ */
+public final class PriceParser {
+
+    public enum Currency {
+        INR, USD, UNKNOWN
+    }
+
+    private static final int MAX_DIGITS = 18;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+        1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private PriceParser() {
+    }
+
+    /**
+     * Amount of the price in the text, or {@code NaN} if it holds none.
+     */
+    public static double amount(CharSequence text) {
+        return scan(text, null);
+    }
+
+    /**
+     * Parses into a caller-owned holder so hot loops can reuse one instance.
+     *
+     * @return whether a price was found; on {@code false} the holder reads NaN / UNKNOWN
+     */
+    public static boolean parse(CharSequence text, ParsedPrice into) {
+        return !Double.isNaN(scan(text, into));
+    }
+
+    private static double scan(CharSequence text, ParsedPrice into) {
+        double first = Double.NaN;
+        if (text != null) {
+            int length = text.length();
+            Currency pending = Currency.UNKNOWN;
+            int i = 0;
+            while (i < length) {
+                char c = text.charAt(i);
+                if (isDigit(c)) {
+                    if (i > 0 && Character.isLetter(text.charAt(i - 1))) {
+                        // digits inside a word such as "i5-1235U" or an ASIN are not prices
+                        while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                            i++;
+                        }
+                        pending = Currency.UNKNOWN;
+                        continue;
+                    }
+
+                    long mantissa = 0;
+                    long mantissaAtSeparator = 0;
+                    int digits = 0;
+                    int digitsAfterSeparator = 0;
+                    char lastSeparator = 0;
+                    int lastSeparatorCount = 0;
+                    boolean mixedSeparators = false;
+                    int j = i;
+                    while (j < length) {
+                        char d = text.charAt(j);
+                        if (isDigit(d)) {
+                            if (digits < MAX_DIGITS) {
+                                mantissa = mantissa * 10 + (d - '0');
+                            }
+                            digits++;
+                            digitsAfterSeparator++;
+                        } else if ((d == ',' || d == '.') && j + 1 < length && isDigit(text.charAt(j + 1))) {
+                            if (d == lastSeparator) {
+                                lastSeparatorCount++;
+                            } else {
+                                mixedSeparators |= lastSeparator != 0;
+                                lastSeparator = d;
+                                lastSeparatorCount = 1;
+                            }
+                            mantissaAtSeparator = mantissa;
+                            digitsAfterSeparator = 0;
+                        } else if (!(isGroupSpace(d) && j + 1 < length && isDigit(text.charAt(j + 1)))) {
+                            break;
+                        }
+                        j++;
+                    }
+
+                    if (digits <= MAX_DIGITS) {
+                        int fractionDigits = 0;
+                        if (lastSeparator != 0 && isDecimalSeparator(mixedSeparators, lastSeparatorCount,
+                            digitsAfterSeparator, mantissaAtSeparator)) {
+                            fractionDigits = digitsAfterSeparator;
+                        }
+                        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+                        Currency currency = pending != Currency.UNKNOWN ? pending : suffixCurrency(text, j);
+                        if (currency != Currency.UNKNOWN) {
+                            return store(into, value, currency);
+                        }
+                        if (Double.isNaN(first)) {
+                            first = value;
+                        }
+                    }
+                    pending = Currency.UNKNOWN;
+                    i = j;
+                    continue;
+                }
+
+                int marker = markerLength(text, i);
+                if (marker > 0) {
+                    pending = markerCurrency(c);
+                    i += marker;
+                    continue;
+                }
+                if (!isSpacing(c)) {
+                    pending = Currency.UNKNOWN;
+                }
+                i++;
+            }
+        }
+        return store(into, first, Currency.UNKNOWN);
+    }
+
+    /**
+     * The last separator is the decimal point when both kinds appear, when it appears once
+     * and is not followed by exactly three digits, or when only zeros precede it ("0.500").
+     */
+    private static boolean isDecimalSeparator(boolean mixedSeparators, int lastSeparatorCount,
+                                              int digitsAfterSeparator, long mantissaAtSeparator) {
+        if (mixedSeparators) {
+            return true;
+        }
+        if (lastSeparatorCount > 1) {
+            return false;
+        }
+        return digitsAfterSeparator != 3 || mantissaAtSeparator == 0;
+    }
+
+    private static double store(ParsedPrice into, double amount, Currency currency) {
+        if (into != null) {
+            into.amount = amount;
+            into.currency = currency;
+        }
+        return amount;
+    }
+
+    private static Currency suffixCurrency(CharSequence text, int from) {
+        int i = from;
+        while (i < text.length() && (text.charAt(i) == ' ' || text.charAt(i) == '\u00A0')) {
+            i++;
+        }
+        if (i < text.length() && text.charAt(i) != '$' && markerLength(text, i) > 0) {
+            return markerCurrency(text.charAt(i));
+        }
+        return Currency.UNKNOWN;
+    }
+
+    /**
+     * Length of the currency marker starting at {@code i}, or 0.
+     */
+    private static int markerLength(CharSequence text, int i) {
+        char c = text.charAt(i);
+        if (c == '\u20B9' || c == '$') {
+            return 1;
+        }
+        if (i > 0 && Character.isLetter(text.charAt(i - 1))) {
+            return 0;
+        }
+        if (word(text, i, "INR") || word(text, i, "USD")) {
+            return 3;
+        }
+        if (word(text, i, "Rs")) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private static Currency markerCurrency(char first) {
+        return first == '$' || first == 'U' || first == 'u' ? Currency.USD : Currency.INR;
+    }
+
+    private static boolean word(CharSequence text, int i, String word) {
+        int end = i + word.length();
+        if (end > text.length()) {
+            return false;
+        }
+        for (int k = 0; k < word.length(); k++) {
+            if (Character.toUpperCase(text.charAt(i + k)) != Character.toUpperCase(word.charAt(k))) {
+                return false;
+            }
+        }
+        return end == text.length() || !Character.isLetter(text.charAt(end));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isGroupSpace(char c) {
+        return c == '\u00A0' || c == '\u202F' || c == '\u2009' || c == '\'';
+    }
+
+    /** Characters allowed between a currency marker and its amount. */
+    private static boolean isSpacing(char c) {
+        return Character.isWhitespace(c) || c == '\u00A0' || c == '\u202F' || c == '.' || c == ':';
+    }
+
+    /**
+     * Reusable parse result: a primitive amount plus its currency.
+     */
+    public static final class ParsedPrice {
+        private double amount = Double.NaN;
+        private Currency currency = Currency.UNKNOWN;
+
+        public double amount() {
+            return amount;
+        }
+
+        public Currency currency() {
+            return currency;
+        }
+
+        public boolean isValid() {
+            return !Double.isNaN(amount);
+        }
+
+        @Override
+        public String toString() {
+            return isValid() ? amount + (currency == Currency.UNKNOWN ? "" : " " + currency) : "no price";
+        }
+    }
+}
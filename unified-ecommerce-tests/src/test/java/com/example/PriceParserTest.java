@@ -0,0 +1,73 @@
+package com.example;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Separator, grouping and currency handling of the shared price parser
+ */
+public class PriceParserTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void parsesPlainDollarAndRupeePrices() {
+        assertPrice("$59.99", 59.99, PriceParser.Currency.USD);
+        assertPrice("₹ 499", 499, PriceParser.Currency.INR);
+        assertPrice("Rs. 1,499", 1499, PriceParser.Currency.INR);
+        assertPrice("1,299.00 USD", 1299, PriceParser.Currency.USD);
+        assertPrice("INR 2,150", 2150, PriceParser.Currency.INR);
+    }
+
+    @Test
+    public void understandsLakhGroupingAndDecimalCommas() {
+        assertPrice("₹1,23,456.00", 123456, PriceParser.Currency.INR);
+        assertPrice("₹1,69,900", 169900, PriceParser.Currency.INR);
+        assertEquals(1234.56, PriceParser.amount("1.234,56"), DELTA);
+        assertEquals(12.5, PriceParser.amount("12,5"), DELTA);
+        assertEquals(1299.0, PriceParser.amount("1\u00A0299,00"), DELTA);
+        assertEquals(0.5, PriceParser.amount("0.500"), DELTA);
+    }
+
+    @Test
+    public void pageSourceFallbackOnlyReadsTheSubtotal() {
+        PriceParser.ParsedPrice parsed = new PriceParser.ParsedPrice();
+        String cart = "<html><head><script>var config = {\"promo\":\"$1\",\"currency\":\"usd 5\"};</script></head>"
+            + "<body><div class='sc-list-item'><span class='a-price'>$19.99</span></div>"
+            + "<div id='sc-subtotal-amount-activecart'><span class='sc-price'>$139.97</span></div></body></html>";
+        assertEquals(139.97, EcommerceTestSuite.subtotalInPageSource(cart, parsed), DELTA);
+        assertEquals(PriceParser.Currency.USD, parsed.currency());
+
+        String noSubtotal = "<html><body><script>window.price = \"$1\";</script><p>Rs 20 off</p></body></html>";
+        assertEquals(0.0, EcommerceTestSuite.subtotalInPageSource(noSubtotal, parsed), DELTA);
+    }
+
+    @Test
+    public void prefersTheFirstAmountWithACurrencyMarker() {
+        assertPrice("Subtotal (2 items): $119.98", 119.98, PriceParser.Currency.USD);
+        assertPrice("₹12,999.00\n₹12,999", 12999, PriceParser.Currency.INR);
+        assertPrice("Intel Core i5-1235U ₹52,990", 52990, PriceParser.Currency.INR);
+        assertPrice("Qty: 3", 3, PriceParser.Currency.UNKNOWN);
+    }
+
+    @Test
+    public void reportsMissingPricesWithoutThrowing() {
+        PriceParser.ParsedPrice parsed = new PriceParser.ParsedPrice();
+        assertTrue(PriceParser.parse("$10.00", parsed));
+
+        assertFalse(PriceParser.parse("Currently unavailable.", parsed));
+        assertTrue(Double.isNaN(parsed.amount()));
+        assertEquals(PriceParser.Currency.UNKNOWN, parsed.currency());
+        assertTrue(Double.isNaN(PriceParser.amount(null)));
+        assertTrue(Double.isNaN(PriceParser.amount("")));
+        assertTrue(Double.isNaN(PriceParser.amount("12345678901234567890")));
+    }
+
+    private static void assertPrice(String text, double amount, PriceParser.Currency currency) {
+        PriceParser.ParsedPrice parsed = new PriceParser.ParsedPrice();
+        assertTrue(text, PriceParser.parse(text, parsed));
+        assertEquals(text, amount, parsed.amount(), DELTA);
+        assertEquals(text, currency, parsed.currency());
+    }
+}
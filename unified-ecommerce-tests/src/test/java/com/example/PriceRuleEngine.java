@@ -0,0 +1,234 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates price observations incrementally against a {@link Rule} and reports only state
+ * transitions, so a price that stays under the threshold alerts once instead of on every poll.
+ * <p>
+ * Each product keeps a fixed-size state: armed/triggered, the current confirmation streak and
+ * a two-bucket rolling maximum. A product triggers after {@link Rule#confirmations(int)}
+ * consecutive matching observations and re-arms once the price climbs back above the trigger
+ * level plus the re-arm margin.
+ */
+public final class PriceRuleEngine {
+
+    public enum Event {
+        /** The rule started matching; notify. */
+        TRIGGERED,
+        /** The price recovered past the re-arm margin; the next drop notifies again. */
+        REARMED
+    }
+
+    private final Rule rule;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    public PriceRuleEngine(Rule rule) {
+        this.rule = rule;
+    }
+
+    public Rule rule() {
+        return rule;
+    }
+
+    /**
+     * Feeds one observation for the product.
+     *
+     * @return the transition this observation caused, or {@code null} if the state is unchanged
+     */
+    public Event observe(String key, long epochMillis, double price) {
+        if (!(price > 0)) {
+            return null;
+        }
+        State state = states.computeIfAbsent(key, k -> new State());
+        synchronized (state) {
+            state.updateRollingMax(epochMillis, price, rule.window);
+            double triggerLevel = triggerLevel(state);
+            if (!state.triggered) {
+                if (price <= triggerLevel) {
+                    state.streak++;
+                    if (state.streak >= rule.confirmations) {
+                        state.triggered = true;
+                        state.streak = 0;
+                        return Event.TRIGGERED;
+                    }
+                } else {
+                    state.streak = 0;
+                }
+            } else if (price > triggerLevel * (1 + rule.rearmPercent / 100)) {
+                state.triggered = false;
+                return Event.REARMED;
+            }
+            return null;
+        }
+    }
+
+    public boolean isTriggered(String key) {
+        State state = states.get(key);
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            return state.triggered;
+        }
+    }
+
+    /**
+     * Whether the product has been observed and no confirmation streak is in progress, so
+     * re-feeding an unchanged price would only repeat the last verdict.
+     */
+    public boolean isSettled(String key) {
+        State state = states.get(key);
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            return state.streak == 0;
+        }
+    }
+
+    /**
+     * Highest price that would currently match for the product, or {@code NaN} if that is not
+     * known yet (a drop rule before the first observation) or the rule has no condition.
+     */
+    public double triggerLevel(String key) {
+        State state = states.get(key);
+        if (state == null) {
+            return rule.threshold;
+        }
+        synchronized (state) {
+            double level = triggerLevel(state);
+            return level == Double.NEGATIVE_INFINITY ? Double.NaN : level;
+        }
+    }
+
+    /** Drops the state of a product that is no longer monitored. */
+    public void forget(String key) {
+        states.remove(key);
+    }
+
+    /**
+     * Highest price that still matches: the larger of the absolute threshold and the
+     * drop level below the rolling max, or {@code -Infinity} when no condition is configured.
+     */
+    private double triggerLevel(State state) {
+        double level = Double.NEGATIVE_INFINITY;
+        if (!Double.isNaN(rule.threshold)) {
+            level = rule.threshold;
+        }
+        if (!Double.isNaN(rule.dropPercent)) {
+            level = Math.max(level, state.rollingMax() * (1 - rule.dropPercent / 100));
+        }
+        return level;
+    }
+
+    private static final class State {
+        boolean triggered;
+        int streak;
+        long bucketStart = Long.MIN_VALUE;
+        double bucketMax = Double.NaN;
+        double previousBucketMax = Double.NaN;
+
+        /**
+         * Keeps the max of the current and the previous half-window bucket, so the rolling max
+         * covers between one half and one full window of history in constant space.
+         */
+        void updateRollingMax(long epochMillis, double price, Duration window) {
+            if (bucketStart == Long.MIN_VALUE) {
+                bucketStart = epochMillis;
+                bucketMax = price;
+                return;
+            }
+            if (window != null) {
+                long bucket = Math.max(1, window.toMillis() / 2);
+                long elapsed = epochMillis - bucketStart;
+                if (elapsed >= bucket) {
+                    previousBucketMax = elapsed >= 2 * bucket ? Double.NaN : bucketMax;
+                    bucketMax = price;
+                    bucketStart = epochMillis;
+                    return;
+                }
+            }
+            bucketMax = Math.max(bucketMax, price);
+        }
+
+        double rollingMax() {
+            return Double.isNaN(previousBucketMax) ? bucketMax : Math.max(bucketMax, previousBucketMax);
+        }
+    }
+
+    /**
+     * Immutable rule definition, e.g.
+     * {@code Rule.atOrBelow(99.99).orDropOf(10, Duration.ofDays(7)).confirmations(2).rearmAbove(2)}.
+     */
+    public static final class Rule {
+        private final double threshold;
+        private final double dropPercent;
+        private final Duration window;
+        private final int confirmations;
+        private final double rearmPercent;
+
+        private Rule(double threshold, double dropPercent, Duration window, int confirmations, double rearmPercent) {
+            this.threshold = threshold;
+            this.dropPercent = dropPercent;
+            this.window = window;
+            this.confirmations = confirmations;
+            this.rearmPercent = rearmPercent;
+        }
+
+        /** Matches prices at or below an absolute threshold. */
+        public static Rule atOrBelow(double threshold) {
+            return new Rule(threshold, Double.NaN, null, 1, 0);
+        }
+
+        /** Matches prices {@code percent}% or more below the max seen within {@code window} (null: ever). */
+        public static Rule dropOf(double percent, Duration window) {
+            return atOrBelow(Double.NaN).orDropOf(percent, window);
+        }
+
+        public Rule orDropOf(double percent, Duration window) {
+            if (!(percent > 0 && percent < 100)) {
+                throw new IllegalArgumentException("Drop percentage must be between 0 and 100: " + percent);
+            }
+            return new Rule(threshold, percent, window, confirmations, rearmPercent);
+        }
+
+        /** Consecutive matching observations required before triggering (default 1). */
+        public Rule confirmations(int count) {
+            if (count < 1) {
+                throw new IllegalArgumentException("At least one confirmation is required: " + count);
+            }
+            return new Rule(threshold, dropPercent, window, count, rearmPercent);
+        }
+
+        /** Re-arm only once the price is this many percent above the trigger level (default 0). */
+        public Rule rearmAbove(double percent) {
+            if (percent < 0) {
+                throw new IllegalArgumentException("Re-arm margin must not be negative: " + percent);
+            }
+            return new Rule(threshold, dropPercent, window, confirmations, percent);
+        }
+
+        /** Absolute threshold, or {@code NaN} if the rule only watches drops. */
+        public double threshold() {
+            return threshold;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder description = new StringBuilder();
+            if (!Double.isNaN(threshold)) {
+                description.append("price <= ").append(threshold);
+            }
+            if (!Double.isNaN(dropPercent)) {
+                description.append(description.length() > 0 ? " or " : "")
+                    .append(dropPercent).append("% below the max")
+                    .append(window == null ? "" : " of " + window);
+            }
+            return description.append(", ").append(confirmations).append(" confirmation(s), re-arm +")
+                .append(rearmPercent).append('%').toString();
+        }
+    }
+}
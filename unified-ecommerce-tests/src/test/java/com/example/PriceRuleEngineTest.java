@@ -0,0 +1,68 @@
+package com.example;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Transition-only alerts, confirmations, hysteresis and rolling-max drops of the rule engine
+ */
+public class PriceRuleEngineTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    public void thresholdAlertsOnceUntilThePriceRecoversPastTheMargin() {
+        PriceRuleEngine engine = new PriceRuleEngine(PriceRuleEngine.Rule.atOrBelow(100).rearmAbove(5));
+
+        assertNull(engine.observe("p", 0, 120));
+        assertEquals(PriceRuleEngine.Event.TRIGGERED, engine.observe("p", MINUTE, 99));
+        assertNull(engine.observe("p", 2 * MINUTE, 95));
+        assertNull(engine.observe("p", 3 * MINUTE, 104)); // above threshold, inside the margin
+        assertNull(engine.observe("p", 4 * MINUTE, 98));
+        assertEquals(PriceRuleEngine.Event.REARMED, engine.observe("p", 5 * MINUTE, 106));
+        assertEquals(PriceRuleEngine.Event.TRIGGERED, engine.observe("p", 6 * MINUTE, 97));
+        assertTrue(engine.isTriggered("p"));
+        assertFalse(engine.isTriggered("other"));
+    }
+
+    @Test
+    public void confirmationsRequireConsecutiveMatches() {
+        PriceRuleEngine engine = new PriceRuleEngine(PriceRuleEngine.Rule.atOrBelow(100).confirmations(3));
+
+        assertNull(engine.observe("p", 0, 90));
+        assertNull(engine.observe("p", MINUTE, 90));
+        assertNull(engine.observe("p", 2 * MINUTE, 110)); // streak broken
+        assertNull(engine.observe("p", 3 * MINUTE, 90));
+        assertNull(engine.observe("p", 4 * MINUTE, 90));
+        assertEquals(PriceRuleEngine.Event.TRIGGERED, engine.observe("p", 5 * MINUTE, 90));
+    }
+
+    @Test
+    public void dropIsMeasuredFromTheRollingMax() {
+        PriceRuleEngine engine = new PriceRuleEngine(PriceRuleEngine.Rule.dropOf(10, Duration.ofMinutes(10)));
+
+        assertNull(engine.observe("p", 0, 200));
+        assertNull(engine.observe("p", MINUTE, 185));
+        assertEquals(PriceRuleEngine.Event.TRIGGERED, engine.observe("p", 2 * MINUTE, 179));
+        assertEquals(PriceRuleEngine.Event.REARMED, engine.observe("p", 3 * MINUTE, 195));
+
+        // once the 200 peak has aged out of the window, 170 is measured against the newer highs
+        assertNull(engine.observe("p", 30 * MINUTE, 175));
+        assertNull(engine.observe("p", 31 * MINUTE, 170));
+        assertEquals(PriceRuleEngine.Event.TRIGGERED, engine.observe("p", 32 * MINUTE, 157));
+    }
+
+    @Test
+    public void productsAreTrackedIndependentlyAndMissingPricesAreIgnored() {
+        PriceRuleEngine engine = new PriceRuleEngine(PriceRuleEngine.Rule.atOrBelow(50));
+
+        assertEquals(PriceRuleEngine.Event.TRIGGERED, engine.observe("a", 0, 40));
+        assertNull(engine.observe("b", 0, 60));
+        assertNull(engine.observe("b", MINUTE, 0));
+        assertNull(engine.observe("b", MINUTE, Double.NaN));
+        assertEquals(PriceRuleEngine.Event.TRIGGERED, engine.observe("b", 2 * MINUTE, 45));
+    }
+}
@@ -0,0 +1,240 @@
+package com.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Product title and canonical URL keyed by ASIN, so metadata that is already known does not cost
+ * another element lookup. Prices are deliberately not cached: every price check reads the page.
+ * <p>
+ * Each field carries the time it was read and its own time-to-live, and a stale field reads as
+ * absent. The number of products is bounded with LRU eviction. The cache is persisted in a
+ * compact binary file: a header ({@code "PMC2"}, entry count) followed by one record per product
+ * in least-recently-used-first order, each holding the ASIN, a bit mask of the fields present and,
+ * per field, its timestamp and value. Stale fields are dropped on save, and the file is replaced
+ * atomically so a crash never leaves half a cache behind.
+ */
+public final class ProductMetadataCache {
+
+    private static final Logger logger = Logger.getLogger(ProductMetadataCache.class.getName());
+
+    private static final int MAGIC = 0x504d4332; // "PMC2"
+
+    public enum Field {
+        TITLE, URL
+    }
+
+    private static volatile ProductMetadataCache shared;
+
+    private final Path file;
+    private final Map<Field, Long> ttlMillis;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries;
+
+    ProductMetadataCache(Path file, int capacity, Map<Field, Duration> ttls, LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Metadata cache capacity must be positive: " + capacity);
+        }
+        this.file = file;
+        this.clock = clock;
+        this.ttlMillis = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            Duration ttl = ttls.get(field);
+            if (ttl == null || ttl.isNegative()) {
+                throw new IllegalArgumentException("Missing or negative TTL for " + field + ": " + ttl);
+            }
+            ttlMillis.put(field, ttl.toMillis());
+        }
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProductMetadataCache.Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        load();
+    }
+
+    /**
+     * Process-wide cache in {@code -Dmetadata.cache.file} (default {@code target/product-metadata.bin}),
+     * saved when the JVM exits. {@code -Dmetadata.cache.size} (default 4096) bounds the products;
+     * {@code -Dmetadata.ttl.titleHours} (default 168) and {@code -Dmetadata.ttl.urlHours} (default 720)
+     * set the field lifetimes.
+     */
+    public static ProductMetadataCache shared() {
+        ProductMetadataCache cache = shared;
+        if (cache == null) {
+            synchronized (ProductMetadataCache.class) {
+                cache = shared;
+                if (cache == null) {
+                    Map<Field, Duration> ttls = new EnumMap<>(Field.class);
+                    ttls.put(Field.TITLE, Duration.ofHours(Long.getLong("metadata.ttl.titleHours", 168L)));
+                    ttls.put(Field.URL, Duration.ofHours(Long.getLong("metadata.ttl.urlHours", 720L)));
+                    cache = new ProductMetadataCache(
+                        Paths.get(System.getProperty("metadata.cache.file", "target/product-metadata.bin")),
+                        Integer.getInteger("metadata.cache.size", 4096), ttls, System::currentTimeMillis);
+                    Runtime.getRuntime().addShutdownHook(new Thread(cache::save, "product-metadata-save"));
+                    shared = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /** Fresh title, or {@code null}. */
+    public String title(String asin) {
+        return fresh(asin, Field.TITLE);
+    }
+
+    /** Fresh canonical product URL, or {@code null}. */
+    public String url(String asin) {
+        return fresh(asin, Field.URL);
+    }
+
+    /**
+     * Stores whichever of the fields are known; {@code null} or empty values leave the field as it was.
+     */
+    public synchronized void put(String asin, String title, String url) {
+        if (asin == null || asin.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        Entry entry = entries.computeIfAbsent(asin, k -> new Entry());
+        if (title != null && !title.isEmpty()) {
+            entry.set(Field.TITLE, title, now);
+        }
+        if (url != null && !url.isEmpty()) {
+            entry.set(Field.URL, url, now);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes every product with at least one fresh field to the cache file.
+     */
+    public synchronized void save() {
+        long now = clock.getAsLong();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            int written = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                int count = 0;
+                for (Entry entry : entries.values()) {
+                    if (entry.freshMask(now) != 0) {
+                        count++;
+                    }
+                }
+                out.writeInt(count);
+                for (Map.Entry<String, Entry> product : entries.entrySet()) {
+                    Entry entry = product.getValue();
+                    int mask = entry.freshMask(now);
+                    if (mask == 0) {
+                        continue;
+                    }
+                    out.writeUTF(product.getKey());
+                    out.writeByte(mask);
+                    for (Field field : Field.values()) {
+                        if ((mask & bit(field)) != 0) {
+                            out.writeLong(entry.readAt[field.ordinal()]);
+                            out.writeUTF(entry.values[field.ordinal()]);
+                        }
+                    }
+                    written++;
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved metadata of " + written + " products to " + file);
+        } catch (IOException e) {
+            logger.warning("Could not save product metadata to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized String fresh(String asin, Field field) {
+        Entry entry = asin == null ? null : entries.get(asin);
+        if (entry == null || !entry.isFresh(field, clock.getAsLong())) {
+            return null;
+        }
+        return entry.values[field.ordinal()];
+    }
+
+    private void load() {
+        long now = clock.getAsLong();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                logger.warning("Ignoring " + file + ": not a product metadata cache");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String asin = in.readUTF();
+                int mask = in.readUnsignedByte();
+                Entry entry = new Entry();
+                for (Field field : Field.values()) {
+                    if ((mask & bit(field)) != 0) {
+                        long readAt = in.readLong();
+                        entry.set(field, in.readUTF(), readAt);
+                    }
+                }
+                if (entry.freshMask(now) != 0) {
+                    entries.put(asin, entry);
+                }
+            }
+            logger.info("Loaded metadata of " + entries.size() + " products from " + file);
+        } catch (NoSuchFileException e) {
+            logger.fine("No product metadata cache at " + file);
+        } catch (EOFException e) {
+            logger.warning("Product metadata cache " + file + " is truncated; kept " + entries.size() + " products");
+        } catch (IOException e) {
+            logger.warning("Could not load product metadata from " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static int bit(Field field) {
+        return 1 << field.ordinal();
+    }
+
+    private final class Entry {
+        final String[] values = new String[Field.values().length];
+        final long[] readAt = new long[Field.values().length];
+
+        void set(Field field, String value, long at) {
+            values[field.ordinal()] = value;
+            readAt[field.ordinal()] = at;
+        }
+
+        boolean isFresh(Field field, long now) {
+            return values[field.ordinal()] != null && now - readAt[field.ordinal()] < ttlMillis.get(field);
+        }
+
+        int freshMask(long now) {
+            int mask = 0;
+            for (Field field : Field.values()) {
+                if (isFresh(field, now)) {
+                    mask |= bit(field);
+                }
+            }
+            return mask;
+        }
+    }
+}
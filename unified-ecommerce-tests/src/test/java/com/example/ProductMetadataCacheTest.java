@@ -0,0 +1,100 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Per-field expiry, LRU bound and the on-disk format of the product metadata cache
+ */
+public class ProductMetadataCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    @Test
+    public void fieldsExpireIndependently() throws IOException {
+        ProductMetadataCache cache = cache(folder.newFolder().toPath().resolve("meta.bin"), 10);
+        cache.put("B0SF000001", "Oak Shelf", "https://www.amazon.in/dp/B0SF000001");
+        assertEquals("Oak Shelf", cache.title("B0SF000001"));
+
+        now.addAndGet(Duration.ofDays(8).toMillis());
+        assertNull(cache.title("B0SF000001"));
+        assertEquals("https://www.amazon.in/dp/B0SF000001", cache.url("B0SF000001"));
+
+        cache.put("B0SF000001", "Oak Shelf, Walnut", null);
+        assertEquals("Oak Shelf, Walnut", cache.title("B0SF000001"));
+        cache.put("B0SF000001", "", "");
+        assertEquals("an unknown title keeps the old one", "Oak Shelf, Walnut", cache.title("B0SF000001"));
+        assertEquals("https://www.amazon.in/dp/B0SF000001", cache.url("B0SF000001"));
+        assertNull(cache.title("B0UNKNOWN1"));
+        assertNull(cache.title(null));
+    }
+
+    @Test
+    public void leastRecentlyUsedProductIsEvicted() throws IOException {
+        ProductMetadataCache cache = cache(folder.newFolder().toPath().resolve("meta.bin"), 2);
+        cache.put("B000000001", "First", null);
+        cache.put("B000000002", "Second", null);
+        assertEquals("First", cache.title("B000000001"));
+        cache.put("B000000003", "Third", null);
+
+        assertEquals(2, cache.size());
+        assertEquals("First", cache.title("B000000001"));
+        assertNull(cache.title("B000000002"));
+    }
+
+    @Test
+    public void survivesRestartsWithoutStaleFields() throws IOException {
+        Path file = folder.newFolder().toPath().resolve("meta.bin");
+        ProductMetadataCache cache = cache(file, 10);
+        cache.put("B0SF000001", "Oak Shelf", "https://www.amazon.in/dp/B0SF000001");
+        cache.put("B0SF000002", "Pine Desk", null);
+        now.addAndGet(Duration.ofDays(6).toMillis());
+        cache.put("B0SF000003", null, "https://www.amazon.in/dp/B0SF000003");
+        now.addAndGet(Duration.ofDays(2).toMillis());
+        cache.save();
+
+        ProductMetadataCache reloaded = cache(file, 10);
+        assertEquals("a product with only stale fields is dropped", 2, reloaded.size());
+        assertNull(reloaded.title("B0SF000001"));
+        assertEquals("https://www.amazon.in/dp/B0SF000001", reloaded.url("B0SF000001"));
+        assertNull(reloaded.title("B0SF000002"));
+        assertEquals("https://www.amazon.in/dp/B0SF000003", reloaded.url("B0SF000003"));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        ProductMetadataCache truncated = cache(file, 10);
+        assertEquals("https://www.amazon.in/dp/B0SF000001", truncated.url("B0SF000001"));
+
+        Files.write(file, new byte[] {'P', 'M', 'C', '1', 0, 0, 0, 0});
+        assertEquals("files in an older format are ignored", 0, cache(file, 10).size());
+    }
+
+    @Test
+    public void extractsCanonicalUrls() {
+        assertEquals("https://www.amazon.in/dp/B0SF000001",
+            SearchResultSnapshot.canonicalUrl("https://www.amazon.in/Oak-Shelf/dp/B0SF000001/ref=sr_1?crid=2", "B0SF000001"));
+        assertNull(SearchResultSnapshot.canonicalUrl("/dp/B0SF000001", "B0SF000001"));
+    }
+
+    private ProductMetadataCache cache(Path file, int capacity) {
+        Map<ProductMetadataCache.Field, Duration> ttls = new EnumMap<>(ProductMetadataCache.Field.class);
+        ttls.put(ProductMetadataCache.Field.TITLE, Duration.ofDays(7));
+        ttls.put(ProductMetadataCache.Field.URL, Duration.ofDays(30));
+        return new ProductMetadataCache(file, capacity, ttls, now::get);
+    }
+}
@@ -0,0 +1,384 @@
+package com.example;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps images, fonts, media, ads and trackers out of browser page loads.
+ * <p>
+ * A {@link Profile} is turned into URL patterns for the DevTools {@code Network.setBlockedURLs}
+ * command, so Chrome refuses the requests itself and no request round-trips through the JVM.
+ * When the session was started with network performance logging ({@code -Dnetwork.report},
+ * on by default), {@link #report(WebDriver)} drains the log and summarizes requests, transferred
+ * bytes, blocked requests and the estimated bytes saved per page.
+ */
+public final class ResourceBlocker {
+
+    private static final Logger logger = Logger.getLogger(ResourceBlocker.class.getName());
+
+    /** Estimated size of a blocked request whose type has no loaded sample in the same report. */
+    private static final long DEFAULT_TYPICAL_BYTES = 20_000;
+
+    /** Ad, beacon and analytics endpoints seen on the storefront's pages. */
+    static final List<String> AD_AND_TRACKER_PATTERNS = Collections.unmodifiableList(Arrays.asList(
+        "*amazon-adsystem.com*",
+        "*fls-eu.amazon.*",
+        "*fls-na.amazon.*",
+        "*unagi.amazon.*",
+        "*unagi-na.amazon.*",
+        "*/uedata*",
+        "*/1/batch/1/OE/*",
+        "*doubleclick.net*",
+        "*googlesyndication.com*",
+        "*googletagmanager.com*",
+        "*google-analytics.com*",
+        "*facebook.net*",
+        "*scorecardresearch.com*"));
+
+    private ResourceBlocker() {
+    }
+
+    /**
+     * Resource types that can be blocked by file extension, with the DevTools type name used in
+     * network events and a typical transfer size for estimating savings.
+     */
+    public enum ResourceType {
+        IMAGE("Image", 40_000, "*.jpg*", "*.jpeg*", "*.png*", "*.gif*", "*.webp*", "*.avif*", "*.svg*", "*.ico*"),
+        FONT("Font", 30_000, "*.woff*", "*.ttf*", "*.otf*", "*.eot*"),
+        MEDIA("Media", 500_000, "*.mp4*", "*.webm*", "*.m3u8*", "*.mp3*", "*.ogg*");
+
+        private final String devToolsName;
+        private final long typicalBytes;
+        private final List<String> patterns;
+
+        ResourceType(String devToolsName, long typicalBytes, String... patterns) {
+            this.devToolsName = devToolsName;
+            this.typicalBytes = typicalBytes;
+            this.patterns = Collections.unmodifiableList(Arrays.asList(patterns));
+        }
+
+        static long typicalBytes(String devToolsName) {
+            for (ResourceType type : values()) {
+                if (type.devToolsName.equals(devToolsName)) {
+                    return type.typicalBytes;
+                }
+            }
+            return DEFAULT_TYPICAL_BYTES;
+        }
+    }
+
+    /**
+     * What to block: whole resource types plus deny URL patterns ({@code *} matches anything).
+     * Allow patterns take precedence and remove every deny pattern they match, e.g. allowing
+     * {@code *amazon-adsystem.com*} keeps that entry of the built-in ad list unblocked.
+     */
+    public static final class Profile {
+
+        /** Blocks nothing. */
+        public static final Profile OFF = new Profile("off", EnumSet.noneOf(ResourceType.class),
+            Collections.emptyList(), Collections.emptyList());
+        /** Blocks ads and trackers only. */
+        public static final Profile ADS = new Profile("ads", EnumSet.noneOf(ResourceType.class),
+            AD_AND_TRACKER_PATTERNS, Collections.emptyList());
+        /** Blocks ads, trackers, images, fonts and media; layout, scripts and prices still load. */
+        public static final Profile LEAN = new Profile("lean", EnumSet.allOf(ResourceType.class),
+            AD_AND_TRACKER_PATTERNS, Collections.emptyList());
+
+        private final String name;
+        private final Set<ResourceType> blockedTypes;
+        private final List<String> deny;
+        private final List<String> allow;
+
+        private Profile(String name, Set<ResourceType> blockedTypes, List<String> deny, List<String> allow) {
+            this.name = name;
+            Set<ResourceType> types = EnumSet.noneOf(ResourceType.class);
+            types.addAll(blockedTypes);
+            this.blockedTypes = Collections.unmodifiableSet(types);
+            this.deny = Collections.unmodifiableList(new ArrayList<>(deny));
+            this.allow = Collections.unmodifiableList(new ArrayList<>(allow));
+        }
+
+        public static Profile named(String name) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "off":
+                    return OFF;
+                case "ads":
+                    return ADS;
+                case "lean":
+                    return LEAN;
+                default:
+                    throw new IllegalArgumentException("Unknown network profile: " + name + " (off, ads, lean)");
+            }
+        }
+
+        /**
+         * Profile named by {@code -D<property>} (or {@code defaultName}), extended by the
+         * comma-separated patterns in {@code -Dnetwork.deny} and {@code -Dnetwork.allow}.
+         */
+        public static Profile fromSystemProperty(String property, String defaultName) {
+            return named(System.getProperty(property, defaultName))
+                .deny(patterns(System.getProperty("network.deny", "")))
+                .allow(patterns(System.getProperty("network.allow", "")));
+        }
+
+        public Profile block(ResourceType... types) {
+            Set<ResourceType> combined = EnumSet.noneOf(ResourceType.class);
+            combined.addAll(blockedTypes);
+            combined.addAll(Arrays.asList(types));
+            return new Profile(name, combined, deny, allow);
+        }
+
+        public Profile deny(String... patterns) {
+            List<String> combined = new ArrayList<>(deny);
+            combined.addAll(Arrays.asList(patterns));
+            return new Profile(name, blockedTypes, combined, allow);
+        }
+
+        public Profile allow(String... patterns) {
+            List<String> combined = new ArrayList<>(allow);
+            combined.addAll(Arrays.asList(patterns));
+            return new Profile(name, blockedTypes, deny, combined);
+        }
+
+        /** URL patterns handed to Chrome: type patterns and deny patterns not covered by an allow pattern. */
+        public List<String> blockedUrlPatterns() {
+            List<Pattern> allowed = new ArrayList<>();
+            for (String pattern : allow) {
+                allowed.add(glob(pattern));
+            }
+            List<String> blocked = new ArrayList<>();
+            for (ResourceType type : blockedTypes) {
+                addUnlessAllowed(blocked, type.patterns, allowed);
+            }
+            addUnlessAllowed(blocked, deny, allowed);
+            return blocked;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + blockedTypes + (deny.isEmpty() ? "" : " deny " + deny.size())
+                + (allow.isEmpty() ? "" : " allow " + allow);
+        }
+
+        private static void addUnlessAllowed(List<String> blocked, List<String> patterns, List<Pattern> allowed) {
+            for (String pattern : patterns) {
+                boolean exempt = false;
+                for (Pattern allow : allowed) {
+                    exempt |= allow.matcher(pattern).matches();
+                }
+                if (!exempt && !blocked.contains(pattern)) {
+                    blocked.add(pattern);
+                }
+            }
+        }
+
+        private static String[] patterns(String commaSeparated) {
+            List<String> patterns = new ArrayList<>();
+            for (String pattern : commaSeparated.split(",")) {
+                if (!pattern.trim().isEmpty()) {
+                    patterns.add(pattern.trim());
+                }
+            }
+            return patterns.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Installs the profile's blocked URL list on the session's current tab; replaces any list set
+     * before. A no-op for drivers without DevTools access.
+     */
+    public static void apply(WebDriver driver, Profile profile) {
+        if (!(driver instanceof HasCdp)) {
+            logger.fine("Driver has no DevTools access; network profile " + profile + " not applied");
+            return;
+        }
+        HasCdp cdp = (HasCdp) driver;
+        try {
+            cdp.executeCdpCommand("Network.enable", Collections.emptyMap());
+            cdp.executeCdpCommand("Network.setBlockedURLs",
+                Collections.singletonMap("urls", profile.blockedUrlPatterns()));
+            logger.fine("Applied network profile " + profile);
+        } catch (RuntimeException e) {
+            logger.warning("Could not apply network profile " + profile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drains the session's performance log and logs one line per page loaded since the last call.
+     * Returns an empty list when the session has no performance log.
+     */
+    public static List<PageReport> report(WebDriver driver) {
+        List<PageReport> pages = summarize(drain(driver));
+        for (PageReport page : pages) {
+            logger.info(page.toString());
+        }
+        return pages;
+    }
+
+    /**
+     * Drops buffered network events, e.g. before a session is handed to another borrower.
+     */
+    static void discardLog(WebDriver driver) {
+        drain(driver);
+    }
+
+    private static List<String> drain(WebDriver driver) {
+        List<String> messages = new ArrayList<>();
+        if (!Boolean.parseBoolean(System.getProperty("network.report", "true"))) {
+            return messages;
+        }
+        try {
+            for (LogEntry entry : driver.manage().logs().get(LogType.PERFORMANCE)) {
+                messages.add(entry.getMessage());
+            }
+        } catch (RuntimeException e) {
+            logger.fine("No performance log available: " + e.getMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * Groups DevTools network events (performance log message JSON) by the document that issued
+     * each request.
+     */
+    static List<PageReport> summarize(List<String> messages) {
+        Json json = new Json();
+        Map<String, PageReport> pages = new LinkedHashMap<>();
+        Map<String, PageReport> pageOfRequest = new HashMap<>();
+        Map<String, String> typeOfRequest = new HashMap<>();
+        Map<String, long[]> loadedBytesByType = new HashMap<>();
+        List<String> blockedTypes = new ArrayList<>();
+        List<PageReport> blockedPages = new ArrayList<>();
+
+        for (String message : messages) {
+            Map<?, ?> event;
+            try {
+                Object outer = json.toType(message, Object.class);
+                event = (Map<?, ?>) ((Map<?, ?>) outer).get("message");
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (event == null || !(event.get("params") instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> params = (Map<?, ?>) event.get("params");
+            String requestId = String.valueOf(params.get("requestId"));
+            String method = String.valueOf(event.get("method"));
+            if ("Network.requestWillBeSent".equals(method)) {
+                Object documentUrl = params.get("documentURL");
+                String page = documentUrl == null ? "(unknown)" : documentUrl.toString();
+                PageReport report = pages.computeIfAbsent(page, PageReport::new);
+                if (!pageOfRequest.containsKey(requestId)) {
+                    report.requests++;
+                }
+                pageOfRequest.put(requestId, report);
+                if (params.get("type") != null) {
+                    typeOfRequest.put(requestId, params.get("type").toString());
+                }
+            } else if ("Network.loadingFinished".equals(method)) {
+                PageReport report = pageOfRequest.get(requestId);
+                if (report != null && params.get("encodedDataLength") instanceof Number) {
+                    long bytes = ((Number) params.get("encodedDataLength")).longValue();
+                    report.transferredBytes += bytes;
+                    long[] sample = loadedBytesByType.computeIfAbsent(
+                        typeOfRequest.getOrDefault(requestId, "Other"), type -> new long[2]);
+                    sample[0] += bytes;
+                    sample[1]++;
+                }
+            } else if ("Network.loadingFailed".equals(method) && "inspector".equals(params.get("blockedReason"))) {
+                PageReport report = pageOfRequest.get(requestId);
+                if (report != null) {
+                    String type = params.get("type") == null ? typeOfRequest.getOrDefault(requestId, "Other")
+                        : params.get("type").toString();
+                    report.blockedRequests++;
+                    report.blockedByType.merge(type, 1, Integer::sum);
+                    blockedTypes.add(type);
+                    blockedPages.add(report);
+                }
+            }
+        }
+
+        // Estimate savings once every loaded sample is known: same-type average, else a typical size
+        for (int i = 0; i < blockedTypes.size(); i++) {
+            long[] sample = loadedBytesByType.get(blockedTypes.get(i));
+            blockedPages.get(i).estimatedBytesSaved += sample != null && sample[1] > 0
+                ? sample[0] / sample[1] : ResourceType.typicalBytes(blockedTypes.get(i));
+        }
+        return new ArrayList<>(pages.values());
+    }
+
+    /**
+     * Network totals of one page.
+     */
+    public static final class PageReport {
+        private final String url;
+        private int requests;
+        private long transferredBytes;
+        private int blockedRequests;
+        private long estimatedBytesSaved;
+        private final Map<String, Integer> blockedByType = new TreeMap<>();
+
+        PageReport(String url) {
+            this.url = url;
+        }
+
+        public String url() {
+            return url;
+        }
+
+        /** Requests issued by the page, blocked ones included. */
+        public int requests() {
+            return requests;
+        }
+
+        public long transferredBytes() {
+            return transferredBytes;
+        }
+
+        public int blockedRequests() {
+            return blockedRequests;
+        }
+
+        public Map<String, Integer> blockedByType() {
+            return Collections.unmodifiableMap(blockedByType);
+        }
+
+        public long estimatedBytesSaved() {
+            return estimatedBytesSaved;
+        }
+
+        @Override
+        public String toString() {
+            return "Network " + url + ": " + requests + " requests, " + transferredBytes / 1024 + " KB transferred, "
+                + blockedRequests + " blocked " + blockedByType + ", ~" + estimatedBytesSaved / 1024 + " KB saved";
+        }
+    }
+
+    private static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (String literal : pattern.split("\\*", -1)) {
+            if (regex.length() > 0) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(literal));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Network profiles and the per-page summary of DevTools network events
+ */
+public class ResourceBlockerTest {
+
+    @Test
+    public void profilesExpandToBlockedUrlPatterns() {
+        assertTrue(ResourceBlocker.Profile.OFF.blockedUrlPatterns().isEmpty());
+        assertEquals(ResourceBlocker.AD_AND_TRACKER_PATTERNS, ResourceBlocker.Profile.ADS.blockedUrlPatterns());
+
+        List<String> lean = ResourceBlocker.Profile.named("LEAN").blockedUrlPatterns();
+        assertTrue(lean.contains("*.webp*"));
+        assertTrue(lean.contains("*.woff*"));
+        assertTrue(lean.contains("*amazon-adsystem.com*"));
+
+        List<String> custom = ResourceBlocker.Profile.ADS
+            .block(ResourceBlocker.ResourceType.FONT)
+            .deny("*/widgets/*")
+            .allow("*amazon-adsystem*", "*.ttf*")
+            .blockedUrlPatterns();
+        assertTrue(custom.contains("*/widgets/*"));
+        assertTrue(custom.contains("*.woff*"));
+        assertFalse(custom.contains("*amazon-adsystem.com*"));
+        assertFalse(custom.contains("*.ttf*"));
+        assertFalse(custom.contains("*.png*"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownProfileNamesAreRejected() {
+        ResourceBlocker.Profile.named("aggressive");
+    }
+
+    @Test
+    public void summarizesRequestsBytesAndBlockedResourcesPerPage() {
+        String page = "https://www.amazon.in/dp/B08N5WRWNW";
+        List<ResourceBlocker.PageReport> pages = ResourceBlocker.summarize(Arrays.asList(
+            sent("1", page, "Document"), finished("1", 120_000),
+            sent("2", page, "Script"), finished("2", 30_000),
+            sent("3", page, "Image"), blocked("3", "Image"),
+            sent("4", page, "Image"), blocked("4", "Image"),
+            sent("5", page, "Script"), blocked("5", "Script"),
+            sent("6", "https://www.amazon.in/s?k=book", "Document"), finished("6", 80_000),
+            "{\"message\":\"not an event\"}",
+            "garbage"));
+
+        assertEquals(2, pages.size());
+        ResourceBlocker.PageReport product = pages.get(0);
+        assertEquals(page, product.url());
+        assertEquals(5, product.requests());
+        assertEquals(150_000, product.transferredBytes());
+        assertEquals(3, product.blockedRequests());
+        assertEquals(Integer.valueOf(2), product.blockedByType().get("Image"));
+        // two images at the typical size, one script at the size of the script that loaded
+        assertEquals(2 * 40_000 + 30_000, product.estimatedBytesSaved());
+
+        assertEquals(1, pages.get(1).requests());
+        assertEquals(0, pages.get(1).blockedRequests());
+    }
+
+    private static String sent(String id, String document, String type) {
+        return event("Network.requestWillBeSent", "\"requestId\":\"" + id + "\",\"documentURL\":\"" + document
+            + "\",\"type\":\"" + type + "\"");
+    }
+
+    private static String finished(String id, long bytes) {
+        return event("Network.loadingFinished", "\"requestId\":\"" + id + "\",\"encodedDataLength\":" + bytes);
+    }
+
+    private static String blocked(String id, String type) {
+        return event("Network.loadingFailed", "\"requestId\":\"" + id + "\",\"type\":\"" + type
+            + "\",\"errorText\":\"net::ERR_BLOCKED_BY_CLIENT\",\"blockedReason\":\"inspector\"");
+    }
+
+    private static String event(String method, String params) {
+        return "{\"message\":{\"method\":\"" + method + "\",\"params\":{" + params + "}},\"webview\":\"ABC\"}";
+    }
+}
@@ -0,0 +1,282 @@
+package com.example;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Structured snapshot of every search-result card, captured with a single script execution.
+ * Product selection then runs on the in-memory cards instead of issuing several
+ * WebDriver calls per card.
+ */
+public final class SearchResultSnapshot {
+
+    private static final Logger logger = Logger.getLogger(SearchResultSnapshot.class.getName());
+
+    static final String[] SPONSORED_KEYWORDS = {
+        "sponsored", "ad", "advertisement", "ad choice", "adchoices",
+        "promoted", "featured", "patronized", "presented by"
+    };
+
+    private static final String CAPTURE =
+        "var CONTAINERS=\".s-result-item[data-component-type='s-search-result'], .s-result-item,"
+        + " [data-component-type='s-search-result'], .s-search-results .s-result-item, .s-main-slot .s-result-item\";"
+        + "var SPONSORED=\"[aria-label*='sponsored'], [aria-label*='Sponsored'], .puis-sponsored-label-text,"
+        + " .s-sponsored-label-text, .s-sponsored-label-info-icon, .s-sponsored-info-icon, .s-label-popover-default,"
+        + " .puis-label-popover-default, [data-cy='sponsored-label'], [data-cy='ad-label'], .s-sponsored-header,"
+        + " .puis-sponsored-header, .ad-badge, .s-ad-badge\";"
+        + "var LINKS=[\"h2 a:not([data-cy*='sponsored'])\", \".a-link-normal[href*='/dp/']:not([data-cy*='sponsored'])\","
+        + " \".a-link-normal[href*='/gp/product/']:not([data-cy*='sponsored'])\", \"h2 .a-link-normal:not([aria-label*='sponsored'])\","
+        + " \".a-section h2 a\", \"[data-cy='title-recipe'] a\", \".s-line-clamp-2 a:not([data-cy*='sponsored'])\","
+        + " \".a-text-normal[href*='/dp/']\", \".a-link-normal.a-text-normal[href*='/dp/']\"];"
+        + "function shown(el){return !!el&&el.getClientRects().length>0&&getComputedStyle(el).visibility!=='hidden';}"
+        + "function isProduct(h){return !!h&&(h.indexOf('/dp/')>=0||h.indexOf('/gp/product/')>=0);}"
+        + "function txt(el){return el?(el.innerText||'').trim():'';}"
+        + "var cards=[];var nodes=document.querySelectorAll(CONTAINERS);"
+        + "for(var i=0;i<nodes.length;i++){var c=nodes[i];"
+        + "var t=c.querySelector('h2 a, .a-link-normal h2, .a-text-normal');"
+        + "var link=null;for(var s=0;s<LINKS.length&&!link;s++){var ls=c.querySelectorAll(LINKS[s]);"
+        + "for(var k=0;k<ls.length;k++){if(shown(ls[k])&&!ls[k].disabled&&isProduct(ls[k].href)){link=ls[k];break;}}}"
+        + "var cart=c.querySelector(\"input[type='submit'][value*='Add to Cart'], .a-button-input[type='submit']\");"
+        + "var price=c.querySelector('.a-price .a-offscreen');"
+        + "cards.push({titleElement:t,title:txt(t),link:link,linkText:txt(link),href:link?link.href:null,"
+        + "asin:c.getAttribute('data-asin')||'',sponsoredLabel:!!c.querySelector(SPONSORED),"
+        + "text:(c.innerText||''),dataAttributes:c.getAttribute('data-component-type')+' '"
+        + "+c.getAttribute('data-cel-widget')+' '+c.getAttribute('data-asin'),"
+        + "className:c.getAttribute('class')||'',addToCart:shown(cart),"
+        + "price:price?(price.textContent||'').trim():''});}"
+        + "var links=[];var anchors=document.querySelectorAll(\"a[href*='/dp/'], a[href*='/gp/product/']\");"
+        + "for(var a=0;a<anchors.length;a++){links.push({element:anchors[a],text:txt(anchors[a]),"
+        + "href:anchors[a].href,displayed:shown(anchors[a])&&!anchors[a].disabled});}"
+        + "return {cards:cards,links:links};";
+
+    private final List<Card> cards;
+    private final List<Link> links;
+
+    private SearchResultSnapshot(List<Card> cards, List<Link> links) {
+        this.cards = cards;
+        this.links = links;
+    }
+
+    /**
+     * Captures all result cards and product links on the current page in one round trip.
+     */
+    public static SearchResultSnapshot capture(WebDriver driver) {
+        List<Card> cards = new ArrayList<>();
+        List<Link> links = new ArrayList<>();
+        try {
+            Object raw = ((JavascriptExecutor) driver).executeScript(CAPTURE);
+            if (raw instanceof Map) {
+                Map<?, ?> result = (Map<?, ?>) raw;
+                for (Object card : asList(result.get("cards"))) {
+                    cards.add(new Card((Map<?, ?>) card));
+                }
+                for (Object link : asList(result.get("links"))) {
+                    links.add(new Link((Map<?, ?>) link));
+                }
+            }
+        } catch (Exception e) {
+            logger.warning("Could not capture search results: " + e.getMessage());
+        }
+        logger.fine("Captured " + cards.size() + " result cards and " + links.size() + " product links");
+        remember(cards);
+        return new SearchResultSnapshot(Collections.unmodifiableList(cards), Collections.unmodifiableList(links));
+    }
+
+    /**
+     * Stores each card's title and canonical URL in the {@link ProductMetadataCache}; the
+     * snapshot already holds them, so this costs no WebDriver calls.
+     */
+    private static void remember(List<Card> cards) {
+        ProductMetadataCache cache = ProductMetadataCache.shared();
+        for (Card card : cards) {
+            if (card.asin().isEmpty() || card.isSponsored()) {
+                continue;
+            }
+            cache.put(card.asin(), card.title(), canonicalUrl(card.href(), card.asin()));
+        }
+    }
+
+    /**
+     * {@code scheme://host/dp/ASIN} of a product link, without tracking parameters.
+     */
+    static String canonicalUrl(String href, String asin) {
+        if (href == null) {
+            return null;
+        }
+        try {
+            URI uri = URI.create(href);
+            return uri.getScheme() == null || uri.getRawAuthority() == null ? null
+                : uri.getScheme() + "://" + uri.getRawAuthority() + "/dp/" + asin;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public List<Card> cards() {
+        return cards;
+    }
+
+    /**
+     * Every {@code /dp/} or {@code /gp/product/} anchor on the page, in document order.
+     */
+    public List<Link> productLinks() {
+        return links;
+    }
+
+    /**
+     * Returns the first sponsored keyword contained in the text, or {@code null}.
+     */
+    static String sponsoredKeyword(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String keyword : SPONSORED_KEYWORDS) {
+            if (lower.contains(keyword)) {
+                return keyword;
+            }
+        }
+        return null;
+    }
+
+    private static List<?> asList(Object value) {
+        return value instanceof List ? (List<?>) value : Collections.emptyList();
+    }
+
+    private static String string(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * One {@code .s-result-item} card.
+     */
+    public static final class Card {
+        private final WebElement titleElement;
+        private final String title;
+        private final WebElement link;
+        private final String linkText;
+        private final String href;
+        private final String asin;
+        private final boolean sponsoredLabel;
+        private final String text;
+        private final String dataAttributes;
+        private final String className;
+        private final boolean addToCart;
+        private final String price;
+
+        Card(Map<?, ?> raw) {
+            titleElement = (WebElement) raw.get("titleElement");
+            title = string(raw.get("title"));
+            link = (WebElement) raw.get("link");
+            linkText = string(raw.get("linkText"));
+            href = (String) raw.get("href");
+            asin = string(raw.get("asin"));
+            sponsoredLabel = Boolean.TRUE.equals(raw.get("sponsoredLabel"));
+            text = string(raw.get("text"));
+            dataAttributes = string(raw.get("dataAttributes"));
+            className = string(raw.get("className"));
+            addToCart = Boolean.TRUE.equals(raw.get("addToCart"));
+            price = string(raw.get("price"));
+        }
+
+        /** Title element ({@code h2 a, .a-link-normal h2, .a-text-normal}), or {@code null}. */
+        public WebElement titleElement() {
+            return titleElement;
+        }
+
+        public String title() {
+            return title;
+        }
+
+        /** First visible product link in the card, or {@code null}. */
+        public WebElement link() {
+            return link;
+        }
+
+        public String linkText() {
+            return linkText;
+        }
+
+        public String href() {
+            return href;
+        }
+
+        public String asin() {
+            return asin;
+        }
+
+        public boolean hasAddToCart() {
+            return addToCart;
+        }
+
+        public String price() {
+            return price;
+        }
+
+        /**
+         * Same four checks the suite always used: label/badge elements, sponsored keywords in the
+         * card text, sponsored data attributes and sponsored CSS classes.
+         */
+        public boolean isSponsored() {
+            if (sponsoredLabel) {
+                logger.fine("Detected sponsored via label/badge elements");
+                return true;
+            }
+            String keyword = sponsoredKeyword(text);
+            if (keyword != null) {
+                logger.fine("Detected sponsored via text keyword: " + keyword);
+                return true;
+            }
+            String attributes = dataAttributes.toLowerCase(Locale.ROOT);
+            if (attributes.contains("sponsored") || attributes.contains("ad")) {
+                logger.fine("Detected sponsored via data attributes");
+                return true;
+            }
+            if (className.contains("s-sponsored") || className.contains("puis-sponsored")
+                || className.contains("ad-container")) {
+                logger.fine("Detected sponsored via CSS classes");
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A product anchor anywhere on the page.
+     */
+    public static final class Link {
+        private final WebElement element;
+        private final String text;
+        private final String href;
+        private final boolean displayed;
+
+        Link(Map<?, ?> raw) {
+            element = (WebElement) raw.get("element");
+            text = string(raw.get("text"));
+            href = (String) raw.get("href");
+            displayed = Boolean.TRUE.equals(raw.get("displayed"));
+        }
+
+        public WebElement element() {
+            return element;
+        }
+
+        public String text() {
+            return text;
+        }
+
+        public String href() {
+            return href;
+        }
+
+        public boolean isDisplayed() {
+            return displayed;
+        }
+    }
+}
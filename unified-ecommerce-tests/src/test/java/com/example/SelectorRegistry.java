@@ -0,0 +1,192 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Self-optimizing registry for selector fallback chains.
+ * Counts attempts and hits per selector and demotes selectors that never match.
+ * The declared order of a chain encodes specificity (a generic selector such as
+ * {@code .a-color-price} also matches list and strike-through prices), so it is otherwise kept:
+ * a chain stops at its first hit, and promoting a generic selector would stop the specific
+ * one from ever being tried again. Statistics are stored in a small properties file so warm
+ * runs start with the learned demotions.
+ */
+public final class SelectorRegistry {
+
+    private static final Logger logger = Logger.getLogger(SelectorRegistry.class.getName());
+
+    /** Attempts without a single hit after which a selector is moved to the end of its chain. */
+    static final int DEMOTE_AFTER = 10;
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private static volatile SelectorRegistry shared;
+
+    private final Path statsFile;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    SelectorRegistry(Path statsFile) {
+        this.statsFile = statsFile;
+        load();
+    }
+
+    /**
+     * Process-wide registry backed by {@code -Dselector.stats.file}
+     * (default {@code target/selector-stats.properties}), saved when the JVM exits.
+     */
+    public static SelectorRegistry shared() {
+        SelectorRegistry registry = shared;
+        if (registry == null) {
+            synchronized (SelectorRegistry.class) {
+                registry = shared;
+                if (registry == null) {
+                    Path file = Paths.get(System.getProperty("selector.stats.file", "target/selector-stats.properties"));
+                    registry = new SelectorRegistry(file);
+                    Runtime.getRuntime().addShutdownHook(new Thread(registry::save, "selector-stats-save"));
+                    shared = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    public Chain chain(String chainId, String... selectors) {
+        return new Chain(chainId, Arrays.asList(selectors));
+    }
+
+    /**
+     * Keeps the declared order, except that selectors with {@link #DEMOTE_AFTER} misses and no
+     * hits go last.
+     */
+    List<String> order(String chainId, List<String> selectors) {
+        List<String> ordered = new ArrayList<>(selectors);
+        ordered.sort(Comparator.comparing(selector -> statsFor(chainId, selector).isDead()));
+        return ordered;
+    }
+
+    void record(String chainId, String selector, boolean hit) {
+        stats.computeIfAbsent(chainId + KEY_SEPARATOR + selector, key -> new Stats()).record(hit);
+    }
+
+    private Stats statsFor(String chainId, String selector) {
+        Stats existing = stats.get(chainId + KEY_SEPARATOR + selector);
+        return existing == null ? Stats.EMPTY : existing;
+    }
+
+    public synchronized void save() {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().encode());
+        }
+        try {
+            if (statsFile.getParent() != null) {
+                Files.createDirectories(statsFile.getParent());
+            }
+            Path temp = statsFile.resolveSibling(statsFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "Selector hit statistics: attempts,hits");
+            }
+            Files.move(temp, statsFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warning("Could not save selector statistics to " + statsFile + ": " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(statsFile)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(statsFile)) {
+            properties.load(in);
+        } catch (IOException e) {
+            logger.warning("Could not load selector statistics from " + statsFile + ": " + e.getMessage());
+            return;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            Stats decoded = Stats.decode(properties.getProperty(key));
+            if (decoded != null) {
+                stats.put(key, decoded);
+            }
+        }
+        logger.fine("Loaded statistics for " + stats.size() + " selectors from " + statsFile);
+    }
+
+    /**
+     * One fallback chain as seen by a single lookup: the learned order plus hit/miss reporting.
+     */
+    public final class Chain {
+        private final String chainId;
+        private final List<String> ordered;
+
+        private Chain(String chainId, List<String> selectors) {
+            this.chainId = chainId;
+            this.ordered = Collections.unmodifiableList(order(chainId, selectors));
+        }
+
+        public List<String> ordered() {
+            return ordered;
+        }
+
+        public void hit(String selector) {
+            record(chainId, selector, true);
+        }
+
+        public void miss(String selector) {
+            record(chainId, selector, false);
+        }
+    }
+
+    private static final class Stats {
+        static final Stats EMPTY = new Stats();
+
+        private long attempts;
+        private long hits;
+
+        synchronized void record(boolean hit) {
+            attempts++;
+            if (hit) {
+                hits++;
+            }
+        }
+
+        synchronized boolean isDead() {
+            return hits == 0 && attempts >= DEMOTE_AFTER;
+        }
+
+        synchronized String encode() {
+            return attempts + "," + hits;
+        }
+
+        /** Reads {@code attempts,hits}; the timings older files append are ignored. */
+        static Stats decode(String value) {
+            String[] parts = value.split(",");
+            if (parts.length != 2 && parts.length != 4) {
+                return null;
+            }
+            try {
+                Stats decoded = new Stats();
+                decoded.attempts = Long.parseLong(parts[0]);
+                decoded.hits = Long.parseLong(parts[1]);
+                return decoded;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
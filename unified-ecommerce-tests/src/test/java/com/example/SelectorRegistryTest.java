@@ -0,0 +1,65 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Ordering and persistence of learned selector statistics
+ */
+public class SelectorRegistryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void declaredOrderOutranksHitRate() throws Exception {
+        SelectorRegistry registry = new SelectorRegistry(folder.getRoot().toPath().resolve("stats.properties"));
+        SelectorRegistry.Chain chain = registry.chain("cart.total", "#first", "#second", "#third");
+        assertEquals(Arrays.asList("#first", "#second", "#third"), chain.ordered());
+
+        chain.miss("#first");
+        chain.miss("#second");
+        chain.hit("#third");
+
+        assertEquals("a generic selector that hit does not overtake the specific ones",
+            Arrays.asList("#first", "#second", "#third"), registry.chain("cart.total", "#first", "#second", "#third").ordered());
+    }
+
+    @Test
+    public void selectorsThatNeverMatchAreDemoted() throws Exception {
+        SelectorRegistry registry = new SelectorRegistry(folder.getRoot().toPath().resolve("stats.properties"));
+        for (int i = 0; i < SelectorRegistry.DEMOTE_AFTER; i++) {
+            registry.record("title", "#dead", false);
+        }
+
+        assertEquals(Arrays.asList("#unseen", "#other", "#dead"),
+            registry.chain("title", "#dead", "#unseen", "#other").ordered());
+    }
+
+    @Test
+    public void statisticsSurviveRestart() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("stats.properties");
+        SelectorRegistry first = new SelectorRegistry(file);
+        first.record("monitor.price", ".a-color-price", true);
+        for (int i = 0; i < SelectorRegistry.DEMOTE_AFTER; i++) {
+            first.record("monitor.price", ".a-price .a-offscreen", false);
+        }
+        first.save();
+
+        SelectorRegistry warm = new SelectorRegistry(file);
+        assertEquals(".a-color-price",
+            warm.chain("monitor.price", ".a-price .a-offscreen", ".a-color-price").ordered().get(0));
+
+        Files.write(file, Arrays.asList("title|\\#dead=10,0,12000,34000"), StandardCharsets.ISO_8859_1);
+        assertEquals("files that still carry timings are read", Arrays.asList("#other", "#dead"),
+            new SelectorRegistry(file).chain("title", "#dead", "#other").ordered());
+    }
+}
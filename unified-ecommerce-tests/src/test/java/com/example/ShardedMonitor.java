@@ -0,0 +1,533 @@
+package com.example;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Monitors a large product catalog across a fleet of browser sessions ("shards").
+ * <p>
+ * Products are assigned to shards by a {@link HashRing}, so each product has one owner and a
+ * change in the fleet only moves the products of the shard that changed. Each shard runs on its
+ * own thread with its own session and checks up to one batch of due products at a time, starting
+ * every page load of the batch in its own tab before reading any of them, so the loads overlap
+ * inside one browser. Hosts share one {@link TokenBucket} each across all shards, so adding shards
+ * scales throughput until the site's rate limit is reached and no further.
+ * <p>
+ * A shard whose session breaks leaves the ring at once and the supervisor starts a replacement
+ * session on its next pass. A shard with far more overdue products than the fleet average has its
+ * ring weight lowered, handing part of its products to the others, and wins the weight back once
+ * it has caught up.
+ */
+public final class ShardedMonitor implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(ShardedMonitor.class.getName());
+
+    /** A product counts as overdue once it has waited this many intervals since its last check. */
+    private static final int OVERDUE_INTERVALS = 2;
+    /** Lowest ring weight a lagging shard is cut to. */
+    private static final double MIN_WEIGHT = 0.25;
+    private static final double WEIGHT_CUT = 0.75;
+    private static final double WEIGHT_RECOVERY = 0.125;
+    private static final long IDLE_SLEEP_MILLIS = 50;
+
+    /**
+     * One shard's browser, or a stand-in in tests.
+     */
+    public interface Session extends AutoCloseable {
+        /**
+         * Reads the prices of {@code urls}, in order; 0 where a page showed no price.
+         *
+         * @throws RuntimeException when the session itself is no longer usable
+         */
+        double[] check(List<String> urls);
+
+        @Override
+        void close();
+    }
+
+    private final Supplier<Session> sessions;
+    private final int batchSize;
+    private final long intervalNanos;
+    private final double hostRate;
+    private final double hostBurst;
+    private final PriceHistoryStore history;
+    private final BiConsumer<String, String> alerts;
+
+    private final Map<String, Product> catalog = new ConcurrentHashMap<>();
+    private volatile Product[] snapshot = new Product[0];
+    private final Map<String, TokenBucket> hosts = new ConcurrentHashMap<>();
+    private final Shard[] shards;
+    private volatile HashRing ring = new HashRing(Map.of());
+    private final ScheduledExecutorService supervisor;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * Fleet of pooled browsers configured by {@code -Dmonitor.shards} (default: the smaller of the
+     * core count and the {@link DriverPool#monitors()} size), {@code -Dmonitor.tabsPerShard} (default 4) and
+     * {@code -Dmonitor.intervalSeconds} (default 300). Host limits come from the same
+     * {@code -Dmonitor.host.ratePerSecond} and {@code -Dmonitor.host.burst} as {@link MonitorService};
+     * prices go to the shared {@link PriceHistoryStore} and alerts to the shared {@link NotificationDispatcher}.
+     */
+    public ShardedMonitor() {
+        this(Integer.getInteger("monitor.shards",
+                Math.min(Runtime.getRuntime().availableProcessors(), DriverPool.monitors().maxSessions())),
+            Integer.getInteger("monitor.tabsPerShard", 4),
+            Duration.ofSeconds(Long.getLong("monitor.intervalSeconds", 300L)),
+            Double.parseDouble(System.getProperty("monitor.host.ratePerSecond", "1")),
+            Double.parseDouble(System.getProperty("monitor.host.burst", "3")),
+            Duration.ofSeconds(10),
+            () -> new BrowserSession(DriverPool.monitors().borrow(), Integer.getInteger("monitor.tabsPerShard", 4)),
+            PriceHistoryStore.shared(),
+            NotificationDispatcher.shared()::submit);
+    }
+
+    ShardedMonitor(int shardCount, int batchSize, Duration interval, double hostRate, double hostBurst,
+                   Duration superviseEvery, Supplier<Session> sessions, PriceHistoryStore history,
+                   BiConsumer<String, String> alerts) {
+        if (shardCount < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("At least one shard and one tab are required: " + shardCount + ", " + batchSize);
+        }
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        if (!(hostRate > 0) || hostBurst < 1) {
+            throw new IllegalArgumentException("Host rate must be positive and burst at least 1: " + hostRate + ", " + hostBurst);
+        }
+        this.sessions = sessions;
+        this.batchSize = batchSize;
+        this.intervalNanos = interval.toNanos();
+        this.hostRate = hostRate;
+        this.hostBurst = hostBurst;
+        this.history = history;
+        this.alerts = alerts;
+
+        this.shards = new Shard[shardCount];
+        for (int id = 0; id < shardCount; id++) {
+            shards[id] = new Shard(id);
+        }
+        for (Shard shard : shards) {
+            shard.start();
+        }
+        this.supervisor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-supervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long superviseMillis = superviseEvery.toMillis();
+        supervisor.scheduleWithFixedDelay(this::supervise, superviseMillis, superviseMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds a product to the catalog, replacing any rule already registered for the URL. A new
+     * product is due at once.
+     */
+    public void add(String url, PriceRuleEngine.Rule rule) {
+        if (closed) {
+            throw new IllegalStateException("Sharded monitor is closed");
+        }
+        catalog.put(url, new Product(url, MonitorService.host(url), rule, System.nanoTime() - intervalNanos));
+        refreshSnapshot();
+    }
+
+    /** Removes a product; a check already running finishes. */
+    public boolean remove(String url) {
+        boolean removed = catalog.remove(url) != null;
+        if (removed) {
+            refreshSnapshot();
+        }
+        return removed;
+    }
+
+    public int size() {
+        return catalog.size();
+    }
+
+    /** Checks finished so far, including ones that found no price. */
+    public long completedChecks() {
+        return completed.get();
+    }
+
+    /** Times a due product was skipped because its host was out of tokens. */
+    public long throttledChecks() {
+        return throttled.get();
+    }
+
+    /** Shards currently holding a working session. */
+    public int liveShards() {
+        int live = 0;
+        for (Shard shard : shards) {
+            if (shard.alive) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /** Shard that currently owns {@code url}, or -1 while no shard is live. */
+    int shardOf(String url) {
+        return ring.nodeFor(PriceHistoryStore.seriesKey(url));
+    }
+
+    double weight(int shard) {
+        return shards[shard].weight;
+    }
+
+    long checks(int shard) {
+        return shards[shard].checks.get();
+    }
+
+    /**
+     * Stops every shard and waits up to {@code timeout} for running batches to finish.
+     */
+    public void close(Duration timeout) {
+        closed = true;
+        supervisor.shutdownNow();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Shard shard : shards) {
+            Thread thread = shard.thread;
+            if (thread == null) {
+                continue;
+            }
+            try {
+                thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (thread.isAlive()) {
+                logger.warning("Shard " + shard.id + " still checking after " + timeout + "; interrupting");
+                thread.interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        close(Duration.ofSeconds(30));
+    }
+
+    private synchronized void refreshSnapshot() {
+        snapshot = catalog.values().toArray(new Product[0]);
+    }
+
+    /**
+     * Rebuilds the ring from the live shards and their weights.
+     */
+    private synchronized void rebuildRing() {
+        Map<Integer, Double> weights = new HashMap<>();
+        for (Shard shard : shards) {
+            if (shard.alive) {
+                weights.put(shard.id, shard.weight);
+            }
+        }
+        if (!weights.equals(ring.weights())) {
+            ring = new HashRing(weights);
+        }
+    }
+
+    private void supervise() {
+        try {
+            for (Shard shard : shards) {
+                if (!closed && !shard.alive && (shard.thread == null || !shard.thread.isAlive())) {
+                    logger.info("Restarting shard " + shard.id);
+                    shard.start();
+                }
+            }
+            rebalanceLagging();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Shard supervision failed", e);
+        }
+    }
+
+    /**
+     * Lowers the weight of shards with at least twice the average number of overdue products and
+     * lets the others recover theirs.
+     */
+    private void rebalanceLagging() {
+        HashRing current = ring;
+        if (current.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Map<Integer, Integer> overdue = new HashMap<>();
+        for (Product product : snapshot) {
+            if (now - product.lastChecked > OVERDUE_INTERVALS * intervalNanos) {
+                overdue.merge(current.nodeForHash(product.hash), 1, Integer::sum);
+            }
+        }
+        int live = current.weights().size();
+        double average = overdue.values().stream().mapToInt(Integer::intValue).sum() / (double) live;
+
+        boolean changed = false;
+        for (Shard shard : shards) {
+            if (!shard.alive) {
+                continue;
+            }
+            int behind = overdue.getOrDefault(shard.id, 0);
+            double weight = shard.weight;
+            if (live > 1 && behind > batchSize && behind >= 2 * average) {
+                weight = Math.max(MIN_WEIGHT, weight * WEIGHT_CUT);
+                if (weight < shard.weight) {
+                    logger.info("Shard " + shard.id + " is behind (" + behind + " overdue products, fleet average "
+                        + String.format("%.1f", average) + "); ring weight lowered to " + String.format("%.2f", weight));
+                }
+            } else if (behind <= average && weight < 1) {
+                weight = Math.min(1, weight + WEIGHT_RECOVERY);
+            }
+            if (weight != shard.weight) {
+                shard.weight = weight;
+                changed = true;
+            }
+        }
+        if (changed) {
+            rebuildRing();
+        }
+    }
+
+    private void record(Product product, double price) {
+        if (!(price > 0)) {
+            logger.fine("No price found for " + product.url);
+            return;
+        }
+        long observedAt = System.currentTimeMillis();
+        if (history != null) {
+            try {
+                history.append(product.key, observedAt, price);
+            } catch (RuntimeException e) {
+                logger.warning("Could not record price history for " + product.key + ": " + e.getMessage());
+            }
+        }
+        if (product.rules.observe(product.key, observedAt, price) == PriceRuleEngine.Event.TRIGGERED) {
+            logger.info("Price drop detected for " + product.url + ": $" + price);
+            alerts.accept("Price Drop Alert!", "Product price has dropped to $" + price + "\n\nProduct URL: " + product.url);
+        }
+    }
+
+    private static final class Product {
+        final String url;
+        final String key;
+        final long hash;
+        final String host;
+        final PriceRuleEngine rules;
+        final AtomicBoolean claimed = new AtomicBoolean();
+        volatile long lastChecked;
+
+        Product(String url, String host, PriceRuleEngine.Rule rule, long lastChecked) {
+            this.url = url;
+            this.key = PriceHistoryStore.seriesKey(url);
+            this.hash = HashRing.hash(key);
+            this.host = host;
+            this.rules = new PriceRuleEngine(rule);
+            this.lastChecked = lastChecked;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        final int id;
+        final AtomicLong checks = new AtomicLong();
+        volatile Thread thread;
+        volatile boolean alive;
+        volatile double weight = 1;
+        private int cursor;
+
+        Shard(int id) {
+            this.id = id;
+        }
+
+        void start() {
+            Thread started = new Thread(this, "monitor-shard-" + id);
+            started.setDaemon(true);
+            thread = started;
+            started.start();
+        }
+
+        @Override
+        public void run() {
+            Session session;
+            try {
+                session = sessions.get();
+            } catch (RuntimeException e) {
+                logger.warning("Shard " + id + " could not open a session: " + e.getMessage());
+                return;
+            }
+            weight = 1;
+            alive = true;
+            rebuildRing();
+            try {
+                while (!closed) {
+                    List<Product> batch = claimBatch();
+                    if (batch.isEmpty()) {
+                        Thread.sleep(IDLE_SLEEP_MILLIS);
+                        continue;
+                    }
+                    try {
+                        check(session, batch);
+                    } finally {
+                        for (Product product : batch) {
+                            product.claimed.set(false);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                if (!closed) {
+                    logger.log(Level.WARNING, "Shard " + id + " lost its session; its products move to the other shards", e);
+                }
+            } finally {
+                alive = false;
+                rebuildRing();
+                try {
+                    session.close();
+                } catch (RuntimeException e) {
+                    logger.fine("Closing shard " + id + " session failed: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Claims up to one batch of due products this shard owns, resuming the scan where the last
+         * one stopped so no product starves behind the start of the catalog.
+         */
+        private List<Product> claimBatch() {
+            Product[] products = snapshot;
+            HashRing current = ring;
+            long now = System.nanoTime();
+            List<Product> batch = new ArrayList<>(batchSize);
+            int count = products.length;
+            int scanned = 0;
+            while (scanned < count && batch.size() < batchSize) {
+                Product product = products[(cursor + scanned) % count];
+                scanned++;
+                if (now - product.lastChecked < intervalNanos || current.nodeForHash(product.hash) != id
+                    || !product.claimed.compareAndSet(false, true)) {
+                    continue;
+                }
+                TokenBucket bucket = hosts.computeIfAbsent(product.host, host -> new TokenBucket(hostRate, hostBurst));
+                if (bucket.tryAcquire() > 0) {
+                    product.claimed.set(false);
+                    throttled.incrementAndGet();
+                    continue;
+                }
+                batch.add(product);
+            }
+            cursor = count == 0 ? 0 : (cursor + scanned) % count;
+            return batch;
+        }
+
+        private void check(Session session, List<Product> batch) {
+            List<String> urls = new ArrayList<>(batch.size());
+            for (Product product : batch) {
+                urls.add(product.url);
+            }
+            double[] prices = session.check(urls);
+            long finished = System.nanoTime();
+            for (int i = 0; i < batch.size(); i++) {
+                Product product = batch.get(i);
+                product.lastChecked = finished;
+                record(product, prices[i]);
+            }
+            checks.addAndGet(batch.size());
+            completed.addAndGet(batch.size());
+        }
+    }
+
+    /**
+     * Pooled browser checking one product per tab. Every tab starts navigating before any is
+     * read, so the page loads of a batch overlap.
+     */
+    static final class BrowserSession implements Session {
+
+        /** Set on the outgoing document so readiness only matches the page that replaces it. */
+        private static final String STALE = "data-shard-stale";
+        private static final String FRESH_PRICE_READY = Arrays.stream(PriceMonitor.PRICE_READY.split(","))
+            .map(selector -> "html:not([" + STALE + "]) " + selector.trim())
+            .collect(Collectors.joining(", "));
+
+        private final WebDriver driver;
+        private final List<String> tabs = new ArrayList<>();
+        private final SelectorRegistry.Chain selectors =
+            SelectorRegistry.shared().chain("monitor.price", PriceMonitor.PRICE_SELECTORS);
+        private final PriceParser.ParsedPrice parsedPrice = new PriceParser.ParsedPrice();
+
+        BrowserSession(WebDriver driver, int tabCount) {
+            this.driver = driver;
+            try {
+                // Request blocking and performance capture are set per tab
+                tabs.add(driver.getWindowHandle());
+                ResourceBlocker.apply(driver, PriceMonitor.NETWORK_PROFILE);
+                PagePerformance.enable(driver);
+                for (int i = 1; i < tabCount; i++) {
+                    driver.switchTo().newWindow(WindowType.TAB);
+                    tabs.add(driver.getWindowHandle());
+                    ResourceBlocker.apply(driver, PriceMonitor.NETWORK_PROFILE);
+                    PagePerformance.enable(driver);
+                }
+            } catch (RuntimeException e) {
+                DriverPool.monitors().invalidate(driver);
+                throw e;
+            }
+        }
+
+        @Override
+        public double[] check(List<String> urls) {
+            if (urls.size() > tabs.size()) {
+                throw new IllegalArgumentException(urls.size() + " products for " + tabs.size() + " tabs");
+            }
+            double[] prices = new double[urls.size()];
+            CommandMetrics.shared().measure("Sharded price check", () -> {
+                for (int i = 0; i < urls.size(); i++) {
+                    driver.switchTo().window(tabs.get(i));
+                    ((JavascriptExecutor) driver).executeScript("document.documentElement.setAttribute('" + STALE
+                        + "', ''); window.location.href = arguments[0];", urls.get(i));
+                }
+                for (int i = 0; i < urls.size(); i++) {
+                    driver.switchTo().window(tabs.get(i));
+                    try {
+                        if (PageReadiness.on(driver).documentReady().selector(FRESH_PRICE_READY).await()) {
+                            prices[i] = PriceMonitor.extractPrice(driver, selectors, parsedPrice);
+                        }
+                    } catch (NoSuchSessionException | NoSuchWindowException | UnreachableBrowserException e) {
+                        throw e;
+                    } catch (WebDriverException e) {
+                        logger.warning("Price check failed for " + urls.get(i) + ": " + e.getMessage());
+                    }
+                }
+                ResourceBlocker.report(driver);
+            });
+            return prices;
+        }
+
+        @Override
+        public void close() {
+            // A session that cannot be reset is discarded by the pool
+            DriverPool.monitors().release(driver);
+        }
+    }
+}
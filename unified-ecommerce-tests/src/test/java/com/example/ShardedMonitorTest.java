@@ -0,0 +1,153 @@
+package com.example;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Consistent hashing and shard rebalancing, with stand-in sessions instead of browsers
+ */
+public class ShardedMonitorTest {
+
+    private static final PriceRuleEngine.Rule RULE = PriceRuleEngine.Rule.atOrBelow(50);
+
+    @Test
+    public void ringSpreadsKeysAndOnlyMovesTheChangedNodesShare() {
+        Map<Integer, Double> weights = new HashMap<>();
+        for (int node = 0; node < 4; node++) {
+            weights.put(node, 1.0);
+        }
+        HashRing ring = new HashRing(weights);
+        int[] owned = new int[4];
+        for (int i = 0; i < 10_000; i++) {
+            owned[ring.nodeFor("product-" + i)]++;
+        }
+        for (int count : owned) {
+            assertTrue("uneven share: " + count, count > 1_800 && count < 3_200);
+        }
+
+        weights.remove(2);
+        HashRing withoutTwo = new HashRing(weights);
+        weights.put(2, 0.5);
+        HashRing halfTwo = new HashRing(weights);
+        int lostByHalving = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String key = "product-" + i;
+            int before = ring.nodeFor(key);
+            if (before != 2) {
+                assertEquals(before, withoutTwo.nodeFor(key));
+                assertEquals(before, halfTwo.nodeFor(key));
+            } else if (halfTwo.nodeFor(key) != 2) {
+                lostByHalving++;
+            }
+        }
+        assertTrue("halving the weight should move part of node 2's keys: " + lostByHalving,
+            lostByHalving > owned[2] / 4 && lostByHalving < owned[2]);
+        assertEquals(-1, new HashRing(Map.of()).nodeFor("product-1"));
+    }
+
+    @Test
+    public void productsOfADeadShardMoveToTheOthers() throws InterruptedException {
+        Map<String, Integer> checkedBy = new ConcurrentHashMap<>();
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger broken = new AtomicInteger(-1);
+        try (ShardedMonitor monitor = new ShardedMonitor(3, 4, Duration.ofMillis(100), 10_000, 10_000,
+            Duration.ofMillis(200), () -> new FakeSession(opened.getAndIncrement(), checkedBy, broken, -1), null, (s, m) -> { })) {
+            for (int i = 0; i < 60; i++) {
+                monitor.add("https://shop" + (i % 3) + ".example/dp/B" + i, RULE);
+            }
+            assertTrue(awaitTrue(() -> monitor.liveShards() == 3 && checkedBy.size() == 60));
+            String url = "https://shop1.example/dp/B7";
+            int owner = monitor.shardOf(url);
+            assertEquals(owner, (int) checkedBy.get(url));
+
+            broken.set(owner);
+            assertTrue(awaitTrue(() -> monitor.shardOf(url) != owner));
+            checkedBy.clear();
+            assertTrue("the dead shard's products are still checked",
+                awaitTrue(() -> checkedBy.containsKey(url) && checkedBy.get(url) != owner));
+            broken.set(-1);
+            assertTrue("the supervisor replaces the dead session", awaitTrue(() -> monitor.liveShards() == 3));
+            assertTrue(opened.get() >= 4);
+        }
+    }
+
+    @Test
+    public void laggingShardHandsProductsToTheOthers() throws InterruptedException {
+        Map<String, Integer> checkedBy = new ConcurrentHashMap<>();
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger broken = new AtomicInteger(-1);
+        try (ShardedMonitor monitor = new ShardedMonitor(3, 2, Duration.ofMillis(50), 10_000, 10_000,
+            Duration.ofMillis(100), () -> new FakeSession(opened.getAndIncrement(), checkedBy, broken, 1), null, (s, m) -> { })) {
+            for (int i = 0; i < 90; i++) {
+                monitor.add("https://shop.example/dp/B" + i, RULE);
+            }
+            assertTrue(awaitTrue(() -> monitor.liveShards() == 3));
+            assertTrue("the slow shard's weight drops", awaitTrue(() -> monitor.weight(1) < 0.5));
+            assertEquals(1.0, monitor.weight(0), 0.0);
+            assertTrue(monitor.checks(0) > monitor.checks(1));
+        }
+    }
+
+    private static boolean awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+
+    /**
+     * Session that records which shard checked each product; {@code slowShard} takes 300 ms per batch.
+     */
+    private static final class FakeSession implements ShardedMonitor.Session {
+        private final int id;
+        private final Map<String, Integer> checkedBy;
+        private final AtomicInteger broken;
+        private final int shard;
+        private final long delayMillis;
+
+        FakeSession(int id, Map<String, Integer> checkedBy, AtomicInteger broken, int slowShard) {
+            this.id = id;
+            this.shard = Integer.parseInt(Thread.currentThread().getName().replace("monitor-shard-", ""));
+            this.checkedBy = checkedBy;
+            this.broken = broken;
+            this.delayMillis = shard == slowShard ? 300 : 0;
+        }
+
+        @Override
+        public double[] check(List<String> urls) {
+            if (broken.get() == shard) {
+                throw new IllegalStateException("session " + id + " crashed");
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            double[] prices = new double[urls.size()];
+            for (int i = 0; i < urls.size(); i++) {
+                checkedBy.put(urls.get(i), shard);
+                prices[i] = 60;
+            }
+            return prices;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
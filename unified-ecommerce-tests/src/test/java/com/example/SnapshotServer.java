@@ -0,0 +1,138 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Serves captured {@link PageSnapshots} from local files for offline replay runs.
+ * <p>
+ * A request is answered with the latest snapshot of the same path and query, else the latest
+ * snapshot of the same path with the same search keywords ({@code k}), else the latest snapshot
+ * of the same path, so volatile tracking parameters in search URLs do not cause misses.
+ * Snapshots are read into memory once at start; responses never depend on the clock or network.
+ */
+public final class SnapshotServer implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(SnapshotServer.class.getName());
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, byte[]> byPathAndQuery = new HashMap<>();
+    private final Map<String, byte[]> byPathAndKeywords = new HashMap<>();
+    private final Map<String, byte[]> byPath = new HashMap<>();
+
+    private SnapshotServer(HttpServer server, ExecutorService executor, Path directory) {
+        this.server = server;
+        this.executor = executor;
+        List<PageSnapshots.Entry> entries = PageSnapshots.readIndex(directory);
+        // Oldest first, so later captures of the same page win
+        for (PageSnapshots.Entry entry : entries) {
+            byte[] page;
+            try {
+                page = Files.readAllBytes(directory.resolve(entry.file()));
+            } catch (IOException e) {
+                logger.warning("Skipping unreadable snapshot " + entry.file() + ": " + e.getMessage());
+                continue;
+            }
+            URI uri = URI.create(entry.url());
+            byPathAndQuery.put(pathAndQuery(uri), page);
+            byPathAndKeywords.put(pathAndKeywords(uri), page);
+            byPath.put(path(uri), page);
+        }
+        logger.info("Loaded " + entries.size() + " page snapshots from " + directory);
+    }
+
+    /**
+     * Starts serving the snapshots in {@code directory} on the loopback interface; port 0 picks a free port.
+     */
+    public static SnapshotServer start(int port, Path directory) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            ExecutorService executor = Executors.newFixedThreadPool(4, runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+            SnapshotServer snapshots = new SnapshotServer(server, executor, directory);
+            server.createContext("/", snapshots::handle);
+            server.setExecutor(executor);
+            server.start();
+            logger.info("Replaying page snapshots on " + snapshots.baseUrl());
+            return snapshots;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start snapshot server", e);
+        }
+    }
+
+    public String baseUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + "/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        URI uri = exchange.getRequestURI();
+        byte[] page = byPathAndQuery.get(pathAndQuery(uri));
+        if (page == null) {
+            page = byPathAndKeywords.get(pathAndKeywords(uri));
+        }
+        if (page == null) {
+            page = byPath.get(path(uri));
+        }
+        exchange.getRequestBody().close();
+        if (page == null) {
+            logger.info("No snapshot for " + uri);
+            page = ("No snapshot for " + uri).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(404, page.length);
+        } else {
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, page.length);
+        }
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(page);
+        }
+    }
+
+    private static String path(URI uri) {
+        return uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+    }
+
+    private static String pathAndQuery(URI uri) {
+        return path(uri) + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+    }
+
+    private static String pathAndKeywords(URI uri) {
+        String keywords = "";
+        if (uri.getRawQuery() != null) {
+            for (String pair : uri.getRawQuery().split("&")) {
+                if (pair.startsWith("k=")) {
+                    keywords = pair.substring(2).replace('+', ' ').replace("%20", " ");
+                }
+            }
+        }
+        return path(uri) + "|" + keywords;
+    }
+}
@@ -0,0 +1,473 @@
+package com.example;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Span-based timing of the suite's logical steps (navigate, search submit, product pick, click,
+ * add-to-cart, cart total, filter apply, verify).
+ * <p>
+ * {@link #step(String, String)} opens a span that nests under the span already open on the same
+ * thread, so every step lands under its task. Finished spans are kept in memory and written by
+ * {@link #export()} as {@code run-<id>.json} (span tree) and {@code run-<id>.csv} (one row per
+ * span). The export also rereads every run CSV in the directory and writes {@code step-stats.csv}
+ * and {@code step-stats.json} with count, mean, p50, p95, p99 and max per step type across runs.
+ *
+ * <pre>
+ * StepTracer.trace("navigate", url, () -&gt; driver.get(url));
+ * WebElement product = StepTracer.trace("product-pick", "", this::findSuitableProduct);
+ * </pre>
+ */
+public final class StepTracer {
+
+    private static final Logger logger = Logger.getLogger(StepTracer.class.getName());
+
+    private static final String CSV_HEADER = "run,id,parent,task,type,name,thread,startEpochMillis,durationMicros";
+
+    private static volatile StepTracer shared;
+
+    private final Path directory;
+    private final String runId;
+    private final int maxSpans;
+    private final AtomicLong ids = new AtomicLong();
+    private final ThreadLocal<Deque<Span>> open = ThreadLocal.withInitial(ArrayDeque::new);
+    private final List<Record> finished = new ArrayList<>();
+    private long dropped;
+
+    StepTracer(Path directory, String runId, int maxSpans) {
+        this.directory = directory;
+        this.runId = runId;
+        this.maxSpans = maxSpans;
+    }
+
+    /**
+     * Process-wide tracer writing to {@code -Dtrace.dir} (default {@code target/step-traces}) and
+     * keeping at most {@code -Dtrace.maxSpans} (default 100000) spans; exported when the JVM exits.
+     */
+    public static StepTracer shared() {
+        StepTracer tracer = shared;
+        if (tracer == null) {
+            synchronized (StepTracer.class) {
+                tracer = shared;
+                if (tracer == null) {
+                    tracer = new StepTracer(Paths.get(System.getProperty("trace.dir", "target/step-traces")),
+                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                            + "-" + ProcessHandle.current().pid(),
+                        Integer.getInteger("trace.maxSpans", 100_000));
+                    Runtime.getRuntime().addShutdownHook(new Thread(tracer::export, "step-trace-export"));
+                    shared = tracer;
+                }
+            }
+        }
+        return tracer;
+    }
+
+    public static Span step(String type) {
+        return shared().start(type, "");
+    }
+
+    /** Opens a span of the given step type on the shared tracer; {@code name} tells instances apart. */
+    public static Span step(String type, String name) {
+        return shared().start(type, name);
+    }
+
+    /** Runs {@code step} inside a span of the given type on the shared tracer. */
+    public static void trace(String type, String name, Runnable step) {
+        shared().inSpan(type, name, step);
+    }
+
+    /** Runs {@code step} inside a span of the given type on the shared tracer and returns its result. */
+    public static <T> T trace(String type, String name, Supplier<T> step) {
+        return shared().inSpan(type, name, step);
+    }
+
+    /** Name of the task span open on this thread, or {@code null}. */
+    public static String currentTask() {
+        Span span = shared().open.get().peek();
+        return span == null ? null : span.task;
+    }
+
+    /** Type of the innermost span open on this thread, or {@code null}. */
+    public static String currentStep() {
+        Span span = shared().open.get().peek();
+        return span == null ? null : span.type;
+    }
+
+    /**
+     * Adds {@code value} under {@code key} to the innermost span open on this thread; the values
+     * appear in the span's {@code attachments} in the JSON trace.
+     *
+     * @return id of the span, or 0 when no span is open
+     */
+    public static long attach(String key, Object value) {
+        return shared().attachToOpen(key, value);
+    }
+
+    long attachToOpen(String key, Object value) {
+        Span span = open.get().peek();
+        if (span == null) {
+            return 0;
+        }
+        span.attachments.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        return span.id;
+    }
+
+    public Span start(String type, String name) {
+        Deque<Span> stack = open.get();
+        Span parent = stack.peek();
+        Span span = new Span(this, ids.incrementAndGet(), parent, type, name == null ? "" : name);
+        stack.push(span);
+        return span;
+    }
+
+    public void inSpan(String type, String name, Runnable step) {
+        Span span = start(type, name);
+        try {
+            step.run();
+        } finally {
+            span.close();
+        }
+    }
+
+    public <T> T inSpan(String type, String name, Supplier<T> step) {
+        Span span = start(type, name);
+        try {
+            return step.get();
+        } finally {
+            span.close();
+        }
+    }
+
+    public String runId() {
+        return runId;
+    }
+
+    /** Spans finished so far in this run. */
+    public synchronized int spanCount() {
+        return finished.size();
+    }
+
+    private void finish(Span span, long durationNanos) {
+        Deque<Span> stack = open.get();
+        // Tolerates spans closed out of order: drop everything opened after this one
+        if (stack.contains(span)) {
+            while (stack.pop() != span) {
+                // unwinding
+            }
+        }
+        Record record = new Record(runId, span.id, span.parent == null ? 0 : span.parent.id, span.task, span.type,
+            span.name, Thread.currentThread().getName(), span.startEpochMillis, TimeUnit.NANOSECONDS.toMicros(durationNanos),
+            span.attachments);
+        synchronized (this) {
+            if (finished.size() < maxSpans) {
+                finished.add(record);
+            } else {
+                dropped++;
+            }
+        }
+    }
+
+    /**
+     * Writes this run's spans and the cross-run step statistics. Safe to call more than once;
+     * each call rewrites the files for the run.
+     */
+    public void export() {
+        List<Record> records;
+        long droppedSpans;
+        synchronized (this) {
+            records = new ArrayList<>(finished);
+            droppedSpans = dropped;
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            writeAtomically(directory.resolve("run-" + runId + ".csv"), toCsv(records));
+            writeAtomically(directory.resolve("run-" + runId + ".json"), new Json().toJson(tree(records, droppedSpans)));
+
+            Map<String, long[]> durations = readDurationsByType();
+            List<Map<String, Object>> stats = statistics(durations);
+            StringBuilder csv = new StringBuilder("type,count,meanMicros,p50Micros,p95Micros,p99Micros,maxMicros\n");
+            for (Map<String, Object> row : stats) {
+                csv.append(csvField(row.get("type").toString())).append(',').append(row.get("count")).append(',')
+                    .append(row.get("meanMicros")).append(',').append(row.get("p50Micros")).append(',')
+                    .append(row.get("p95Micros")).append(',').append(row.get("p99Micros")).append(',')
+                    .append(row.get("maxMicros")).append('\n');
+                logger.info("Step " + row.get("type") + ": n=" + row.get("count") + " p50=" + millis(row.get("p50Micros"))
+                    + " p95=" + millis(row.get("p95Micros")) + " p99=" + millis(row.get("p99Micros")));
+            }
+            writeAtomically(directory.resolve("step-stats.csv"), csv.toString());
+            writeAtomically(directory.resolve("step-stats.json"), new Json().toJson(stats));
+            logger.info("Exported " + records.size() + " spans of run " + runId + " to " + directory
+                + (droppedSpans > 0 ? " (" + droppedSpans + " dropped over the limit)" : ""));
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Could not export step traces to " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private static String toCsv(List<Record> records) {
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        for (Record record : records) {
+            csv.append(record.run).append(',').append(record.id).append(',').append(record.parent).append(',')
+                .append(csvField(record.task)).append(',').append(csvField(record.type)).append(',')
+                .append(csvField(record.name)).append(',').append(csvField(record.thread)).append(',')
+                .append(record.startEpochMillis).append(',').append(record.durationMicros).append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Nests the flat records under their parents; spans whose parent is still open or was
+     * dropped become roots.
+     */
+    private Map<String, Object> tree(List<Record> records, long droppedSpans) {
+        Map<Long, Map<String, Object>> nodes = new HashMap<>();
+        for (Record record : records) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("id", record.id);
+            node.put("type", record.type);
+            node.put("name", record.name);
+            node.put("thread", record.thread);
+            node.put("startEpochMillis", record.startEpochMillis);
+            node.put("durationMicros", record.durationMicros);
+            if (!record.attachments.isEmpty()) {
+                node.put("attachments", record.attachments);
+            }
+            node.put("children", new ArrayList<Map<String, Object>>());
+            nodes.put(record.id, node);
+        }
+        List<Map<String, Object>> roots = new ArrayList<>();
+        for (Record record : records) {
+            Map<String, Object> parent = nodes.get(record.parent);
+            if (parent == null) {
+                roots.add(nodes.get(record.id));
+            } else {
+                childrenOf(parent).add(nodes.get(record.id));
+            }
+        }
+        for (Map<String, Object> node : nodes.values()) {
+            childrenOf(node).sort((a, b) -> Long.compare((Long) a.get("startEpochMillis"), (Long) b.get("startEpochMillis")));
+        }
+        roots.sort((a, b) -> Long.compare((Long) a.get("startEpochMillis"), (Long) b.get("startEpochMillis")));
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("run", runId);
+        run.put("droppedSpans", droppedSpans);
+        run.put("spans", roots);
+        return run;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> childrenOf(Map<String, Object> node) {
+        return (List<Map<String, Object>>) node.get("children");
+    }
+
+    /**
+     * Durations per step type from every run CSV in the directory, this run included.
+     */
+    private Map<String, long[]> readDurationsByType() throws IOException {
+        Map<String, List<Long>> byType = new TreeMap<>();
+        try (DirectoryStream<Path> runs = Files.newDirectoryStream(directory, "run-*.csv")) {
+            for (Path run : runs) {
+                List<String> lines = Files.readAllLines(run, StandardCharsets.UTF_8);
+                for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+                    List<String> fields = parseCsvLine(line);
+                    if (fields.size() == 9) {
+                        try {
+                            byType.computeIfAbsent(fields.get(4), type -> new ArrayList<>()).add(Long.parseLong(fields.get(8)));
+                        } catch (NumberFormatException e) {
+                            logger.fine("Skipping malformed span row in " + run + ": " + line);
+                        }
+                    }
+                }
+            }
+        }
+        Map<String, long[]> durations = new TreeMap<>();
+        for (Map.Entry<String, List<Long>> entry : byType.entrySet()) {
+            long[] values = new long[entry.getValue().size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = entry.getValue().get(i);
+            }
+            durations.put(entry.getKey(), values);
+        }
+        return durations;
+    }
+
+    static List<Map<String, Object>> statistics(Map<String, long[]> durationsByType) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : durationsByType.entrySet()) {
+            long[] sorted = entry.getValue().clone();
+            Arrays.sort(sorted);
+            long sum = 0;
+            for (long value : sorted) {
+                sum += value;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("type", entry.getKey());
+            row.put("count", sorted.length);
+            row.put("meanMicros", sorted.length == 0 ? 0 : sum / sorted.length);
+            row.put("p50Micros", percentile(sorted, 50));
+            row.put("p95Micros", percentile(sorted, 95));
+            row.put("p99Micros", percentile(sorted, 99));
+            row.put("maxMicros", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Nearest-rank percentile of an ascending array.
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Nearest-rank percentile of an ascending array, or {@code NaN} when it is empty.
+     */
+    static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static String millis(Object micros) {
+        return String.format("%.1fms", ((Number) micros).longValue() / 1000.0);
+    }
+
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"").replace('\n', ' ') + '"';
+    }
+
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static void writeAtomically(Path file, String content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(content);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * One timed step; close it (try-with-resources) on the thread that opened it.
+     */
+    public static final class Span implements AutoCloseable {
+        private final StepTracer tracer;
+        private final long id;
+        private final Span parent;
+        private final String task;
+        private final String type;
+        private final String name;
+        private final long startEpochMillis = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private final Map<String, List<Object>> attachments = new LinkedHashMap<>();
+        private boolean closed;
+
+        private Span(StepTracer tracer, long id, Span parent, String type, String name) {
+            this.tracer = tracer;
+            this.id = id;
+            this.parent = parent;
+            this.task = parent == null ? (name.isEmpty() ? type : name) : parent.task;
+            this.type = type;
+            this.name = name;
+        }
+
+        public String type() {
+            return type;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                tracer.finish(this, System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    private static final class Record {
+        final String run;
+        final long id;
+        final long parent;
+        final String task;
+        final String type;
+        final String name;
+        final String thread;
+        final long startEpochMillis;
+        final long durationMicros;
+        final Map<String, List<Object>> attachments;
+
+        Record(String run, long id, long parent, String task, String type, String name, String thread,
+               long startEpochMillis, long durationMicros, Map<String, List<Object>> attachments) {
+            this.run = run;
+            this.id = id;
+            this.parent = parent;
+            this.task = task;
+            this.type = type;
+            this.name = name;
+            this.thread = thread;
+            this.startEpochMillis = startEpochMillis;
+            this.durationMicros = durationMicros;
+            this.attachments = attachments;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Span nesting, run export and cross-run step percentiles
+ */
+public class StepTracerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void nestedSpansAreExportedAsTreeAndCsv() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        StepTracer tracer = new StepTracer(dir, "r1", 100);
+        tracer.inSpan("task", "Task 1, product selection", () -> {
+            StepTracer.Span navigate = tracer.start("navigate", "http://localhost/");
+            assertEquals("navigate", navigate.type());
+            navigate.close();
+            tracer.inSpan("product-pick", "", () -> tracer.start("click", "product").close());
+        });
+        assertEquals(4, tracer.spanCount());
+        tracer.export();
+
+        List<String> csv = Files.readAllLines(dir.resolve("run-r1.csv"), StandardCharsets.UTF_8);
+        assertEquals(5, csv.size());
+        List<String> click = StepTracer.parseCsvLine(csv.get(2));
+        assertEquals("click", click.get(4));
+        assertEquals("Task 1, product selection", click.get(3));
+
+        Map<?, ?> run = (Map<?, ?>) new Json().toType(
+            new String(Files.readAllBytes(dir.resolve("run-r1.json")), StandardCharsets.UTF_8), Object.class);
+        List<?> roots = (List<?>) run.get("spans");
+        assertEquals(1, roots.size());
+        List<?> steps = (List<?>) ((Map<?, ?>) roots.get(0)).get("children");
+        assertEquals(2, steps.size());
+        assertEquals("navigate", ((Map<?, ?>) steps.get(0)).get("type"));
+        List<?> clicks = (List<?>) ((Map<?, ?>) steps.get(1)).get("children");
+        assertEquals("click", ((Map<?, ?>) clicks.get(0)).get("type"));
+
+        assertEquals(5, Files.readAllLines(dir.resolve("step-stats.csv"), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    public void statisticsCoverEveryRunInTheDirectory() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        for (String run : Arrays.asList("a", "b")) {
+            StepTracer tracer = new StepTracer(dir, run, 100);
+            tracer.start("verify", "").close();
+            tracer.start("verify", "").close();
+            tracer.export();
+        }
+        String stats = String.join("\n", Files.readAllLines(dir.resolve("step-stats.csv"), StandardCharsets.UTF_8));
+        assertTrue(stats, stats.contains("\nverify,4,"));
+    }
+
+    @Test
+    public void percentilesUseNearestRank() {
+        long[] sorted = new long[100];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i + 1;
+        }
+        assertEquals(50, StepTracer.percentile(sorted, 50));
+        assertEquals(95, StepTracer.percentile(sorted, 95));
+        assertEquals(99, StepTracer.percentile(sorted, 99));
+        assertEquals(7, StepTracer.percentile(new long[] {7}, 99));
+        assertEquals(2.5, StepTracer.percentile(new double[] {0.5, 1.5, 2.5}, 90), 0.0);
+        assertTrue(Double.isNaN(StepTracer.percentile(new double[0], 50)));
+
+        Map<String, Object> row = StepTracer.statistics(Collections.singletonMap("click", new long[] {30, 10, 20})).get(0);
+        assertEquals(20L, row.get("meanMicros"));
+        assertEquals(20L, row.get("p50Micros"));
+        assertEquals(30L, row.get("maxMicros"));
+    }
+
+    @Test
+    public void attachmentsGoToTheInnermostOpenSpan() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        StepTracer tracer = new StepTracer(dir, "r2", 100);
+        assertEquals(0, tracer.attachToOpen("page", "nothing open"));
+        long id = tracer.inSpan("task", "Task 1", () -> tracer.inSpan("navigate", "http://localhost/",
+            () -> tracer.attachToOpen("page", Collections.singletonMap("networkMillis", 120))));
+        tracer.export();
+
+        Map<?, ?> run = (Map<?, ?>) new Json().toType(
+            new String(Files.readAllBytes(dir.resolve("run-r2.json")), StandardCharsets.UTF_8), Object.class);
+        Map<?, ?> task = (Map<?, ?>) ((List<?>) run.get("spans")).get(0);
+        assertNull(task.get("attachments"));
+        Map<?, ?> navigate = (Map<?, ?>) ((List<?>) task.get("children")).get(0);
+        assertEquals(id, ((Number) navigate.get("id")).longValue());
+        List<?> pages = (List<?>) ((Map<?, ?>) navigate.get("attachments")).get("page");
+        assertEquals(120L, ((Number) ((Map<?, ?>) pages.get(0)).get("networkMillis")).longValue());
+    }
+}
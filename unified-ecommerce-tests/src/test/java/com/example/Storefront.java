@@ -0,0 +1,94 @@
+package com.example;
+
+import java.net.URI;
+
+/**
+ * Base-URL switch between the live storefront and a stand-in.
+ * <ul>
+ *   <li>{@code -Dstorefront.baseUrl=http://host:port/} points every flow at that server</li>
+ *   <li>{@code -Dstorefront=local} starts the embedded {@link LocalStorefront}
+ *       (port from {@code -Dstorefront.port}, default a free port)</li>
+ *   <li>{@code -Dstorefront=replay} serves the pages captured by {@link PageSnapshots}
+ *       through {@link SnapshotServer} (same port property)</li>
+ * </ul>
+ * Without either property the live Amazon URLs are used unchanged.
+ */
+public final class Storefront {
+
+    public static final String LIVE_BASE_URL = "https://www.amazon.in/";
+
+    private static volatile boolean initialized;
+    private static String override;
+    private static LocalStorefront local;
+    private static SnapshotServer replay;
+
+    private Storefront() {
+    }
+
+    public static String baseUrl() {
+        return resolve(LIVE_BASE_URL);
+    }
+
+    /**
+     * Maps a live storefront URL onto the configured stand-in, keeping path and query.
+     */
+    public static String resolve(String liveUrl) {
+        return resolve(overrideBaseUrl(), liveUrl);
+    }
+
+    /** {@link #resolve(String)} against {@code base}; {@code null} keeps the live URL. */
+    static String resolve(String base, String liveUrl) {
+        if (base == null) {
+            return liveUrl;
+        }
+        URI uri = URI.create(liveUrl);
+        String pathAndQuery = (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+            + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+        return base.replaceAll("/+$", "") + pathAndQuery;
+    }
+
+    /**
+     * Whether the URL belongs to the storefront the suite is currently pointed at.
+     */
+    public static boolean isStorefrontUrl(String url) {
+        return isStorefrontUrl(overrideBaseUrl(), url);
+    }
+
+    /** {@link #isStorefrontUrl(String)} against {@code base}; {@code null} means the live storefront. */
+    static boolean isStorefrontUrl(String base, String url) {
+        if (url == null) {
+            return false;
+        }
+        if (base == null) {
+            return url.contains("amazon.in");
+        }
+        return url.startsWith(base.replaceAll("/+$", ""));
+    }
+
+    public static boolean isOverridden() {
+        return overrideBaseUrl() != null;
+    }
+
+    private static String overrideBaseUrl() {
+        if (!initialized) {
+            synchronized (Storefront.class) {
+                if (!initialized) {
+                    String configured = System.getProperty("storefront.baseUrl");
+                    if (configured != null && !configured.isBlank()) {
+                        override = configured;
+                    } else if ("local".equalsIgnoreCase(System.getProperty("storefront"))) {
+                        local = LocalStorefront.start(Integer.getInteger("storefront.port", 0));
+                        Runtime.getRuntime().addShutdownHook(new Thread(local::close, "local-storefront-shutdown"));
+                        override = local.baseUrl();
+                    } else if ("replay".equalsIgnoreCase(System.getProperty("storefront"))) {
+                        replay = SnapshotServer.start(Integer.getInteger("storefront.port", 0), PageSnapshots.directory());
+                        Runtime.getRuntime().addShutdownHook(new Thread(replay::close, "snapshot-server-shutdown"));
+                        override = replay.baseUrl();
+                    }
+                    initialized = true;
+                }
+            }
+        }
+        return override;
+    }
+}
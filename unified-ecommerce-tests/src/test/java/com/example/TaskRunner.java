@@ -0,0 +1,85 @@
+package com.example;
+
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runs the task methods of a suite sequentially (default) or, with {@code -Dtasks.parallel=true},
+ * concurrently on up to {@code -Dtasks.parallelism} threads.
+ * JUnit creates a fresh test instance per method inside the worker thread, so every task
+ * borrows its own browser session; failures are reported through JUnit's synchronized notifier.
+ */
+public class TaskRunner extends BlockJUnit4ClassRunner {
+
+    private static final Logger logger = Logger.getLogger(TaskRunner.class.getName());
+
+    private static final int DEFAULT_PARALLELISM = 3;
+
+    public TaskRunner(Class<?> testClass) throws InitializationError {
+        super(testClass);
+        if (isParallel()) {
+            int threads = parallelism();
+            logger.info("Running tasks of " + testClass.getSimpleName() + " in parallel on " + threads + " threads");
+            setScheduler(new ParallelScheduler(threads));
+        }
+    }
+
+    static boolean isParallel() {
+        return Boolean.getBoolean("tasks.parallel");
+    }
+
+    /**
+     * Number of tasks allowed to run at once; 1 in sequential mode.
+     */
+    static int parallelism() {
+        if (!isParallel()) {
+            return 1;
+        }
+        return Math.max(1, Integer.getInteger("tasks.parallelism", DEFAULT_PARALLELISM));
+    }
+
+    private static final class ParallelScheduler implements RunnerScheduler {
+        private final ExecutorService executor;
+        private final List<Future<?>> pending = new ArrayList<>();
+
+        ParallelScheduler(int threads) {
+            AtomicInteger counter = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "task-runner-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            pending.add(executor.submit(childStatement));
+        }
+
+        @Override
+        public void finished() {
+            try {
+                for (Future<?> task : pending) {
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Test failures are reported by the notifier; this is only reached on runner errors
+                logger.severe("Task runner failed: " + e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
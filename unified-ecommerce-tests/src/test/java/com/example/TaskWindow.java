@@ -0,0 +1,19 @@
+package com.example;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Daily time window (HH:mm, local time) in which a task is allowed to run.
+ * Checked by {@link TaskWindowRule} before any fixtures of the test are set up.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TaskWindow {
+
+    String start();
+
+    String end();
+}
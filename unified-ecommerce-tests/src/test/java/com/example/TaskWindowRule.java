@@ -0,0 +1,55 @@
+package com.example;
+
+import org.junit.AssumptionViolatedException;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.time.LocalTime;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Skips tests annotated with {@link TaskWindow} when the current time is outside their window.
+ * The rule wraps {@code @Before}/{@code @After}, so a skipped task never provisions a browser.
+ * {@code -Dtasks.ignoreWindows=true} runs every task regardless of the time, e.g. against a stand-in storefront.
+ */
+public class TaskWindowRule implements TestRule {
+
+    private static final Logger logger = Logger.getLogger(TaskWindowRule.class.getName());
+
+    private final Supplier<LocalTime> clock;
+
+    public TaskWindowRule() {
+        this(LocalTime::now);
+    }
+
+    TaskWindowRule(Supplier<LocalTime> clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        TaskWindow window = description.getAnnotation(TaskWindow.class);
+        if (window == null || Boolean.getBoolean("tasks.ignoreWindows")) {
+            return base;
+        }
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                LocalTime startTime = LocalTime.parse(window.start());
+                LocalTime endTime = LocalTime.parse(window.end());
+                LocalTime currentTime = clock.get();
+                if (currentTime.isBefore(startTime) || currentTime.isAfter(endTime)) {
+                    String message = description.getMethodName() + " - SKIPPED: Current time " + currentTime
+                        + " is outside allowed window (" + startTime + " - " + endTime + ")";
+                    logger.info(message);
+                    throw new AssumptionViolatedException(message);
+                }
+                logger.info(description.getMethodName() + " - Executing within allowed time window ("
+                    + startTime + " - " + endTime + ")");
+                base.evaluate();
+            }
+        };
+    }
+}
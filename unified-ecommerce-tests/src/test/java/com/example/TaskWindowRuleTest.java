@@ -0,0 +1,91 @@
+package com.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Task windows against a fixed clock: inside, outside and with windows ignored
+ */
+public class TaskWindowRuleTest {
+
+    @Before
+    public void resetTask() {
+        WindowedTask.events.clear();
+    }
+
+    @After
+    public void clearProperty() {
+        System.clearProperty("tasks.ignoreWindows");
+    }
+
+    @Test
+    public void runsTasksInsideTheirWindow() {
+        Result result = runAt(LocalTime.of(9, 0));
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(0, result.getAssumptionFailureCount());
+        assertEquals(4, WindowedTask.events.size());
+        assertTrue("the window includes its start", WindowedTask.events.contains("windowed"));
+    }
+
+    @Test
+    public void skipsTasksOutsideTheirWindowBeforeAnyFixture() {
+        Result result = runAt(LocalTime.of(17, 1));
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(1, result.getAssumptionFailureCount());
+        assertEquals("tasks without a window still run", Arrays.asList("before", "unwindowed"), WindowedTask.events);
+    }
+
+    @Test
+    public void ignoreWindowsRunsEveryTask() {
+        System.setProperty("tasks.ignoreWindows", "true");
+        Result result = runAt(LocalTime.of(3, 0));
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(0, result.getAssumptionFailureCount());
+        assertEquals(4, WindowedTask.events.size());
+        assertTrue(WindowedTask.events.contains("windowed"));
+    }
+
+    private static Result runAt(LocalTime time) {
+        WindowedTask.now.set(time);
+        return JUnitCore.runClasses(WindowedTask.class);
+    }
+
+    public static class WindowedTask {
+        static final AtomicReference<LocalTime> now = new AtomicReference<>();
+        static final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Rule
+        public final TaskWindowRule taskWindow = new TaskWindowRule(now::get);
+
+        @Before
+        public void setUp() {
+            events.add("before");
+        }
+
+        @Test
+        @TaskWindow(start = "09:00", end = "17:00")
+        public void windowed() {
+            events.add("windowed");
+        }
+
+        @Test
+        public void unwindowed() {
+            events.add("unwindowed");
+        }
+    }
+}
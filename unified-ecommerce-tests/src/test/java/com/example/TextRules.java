@@ -0,0 +1,78 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Pure string rules used by the suite: rating extraction, username and profile-name
+ * validation. Kept free of WebDriver so the benchmarks under {@code src/jmh/java} can
+ * exercise exactly the code the tests run. Prices go through {@link PriceParser}.
+ */
+final class TextRules {
+
+    private static final Logger logger = Logger.getLogger(TextRules.class.getName());
+
+    /** Letters a Task 3 profile name must not contain, compared upper-cased. */
+    static final List<String> FORBIDDEN_PROFILE_CHARACTERS = Arrays.asList("A", "C", "G", "I", "L", "K");
+
+    private TextRules() {
+    }
+
+    static boolean isValidUsername(String username) {
+        if (username == null || username.length() != 10) {
+            return false;
+        }
+        return username.matches("^[a-zA-Z0-9]+$");
+    }
+
+    /**
+     * First whitespace-separated number in text such as "4.3 out of 5 stars", or 0.
+     */
+    static double extractRating(String ratingText) {
+        try {
+            String[] parts = ratingText.split("\\s+");
+            for (String part : parts) {
+                if (part.matches("\\d+(\\.\\d+)?")) {
+                    return Double.parseDouble(part);
+                }
+            }
+        } catch (Exception e) {
+            // Return 0 if parsing fails
+        }
+        return 0.0;
+    }
+
+    /**
+     * Rating from filter URL parameters like {@code p_72=4-} or {@code rh=p_72%3A4-}, or 0.
+     */
+    static double extractRatingFromHref(String href) {
+        try {
+            if (href.contains("p_72=")) {
+                int startIndex = href.indexOf("p_72=") + 5;
+                int endIndex = href.indexOf("-", startIndex);
+                if (endIndex == -1) endIndex = href.indexOf("&", startIndex);
+                if (endIndex == -1) endIndex = href.length();
+
+                String ratingStr = href.substring(startIndex, endIndex);
+                return Double.parseDouble(ratingStr);
+            } else if (href.contains("rh=p_72")) {
+                int startIndex = href.indexOf("p_72%3A") + 8;
+                int endIndex = href.indexOf("-", startIndex);
+                if (endIndex == -1) endIndex = href.indexOf("%", startIndex);
+                if (endIndex == -1) endIndex = href.length();
+
+                String ratingStr = href.substring(startIndex, endIndex);
+                return Double.parseDouble(ratingStr);
+            }
+        } catch (Exception e) {
+            logger.fine("Could not extract rating from href: " + href + " - " + e.getMessage());
+        }
+        return 0.0;
+    }
+
+    static boolean hasForbiddenCharacter(String profileName) {
+        return FORBIDDEN_PROFILE_CHARACTERS.stream()
+            .anyMatch(c -> profileName.toUpperCase().contains(c));
+    }
+}
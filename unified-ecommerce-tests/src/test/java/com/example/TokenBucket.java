@@ -0,0 +1,65 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter: refills at {@code ratePerSecond} up to {@code burst} tokens.
+ * {@link #tryAcquire()} never blocks; it reports how long until the next token instead, so a
+ * scheduler can park the work rather than a thread. The rate can be lowered and raised at runtime.
+ */
+public final class TokenBucket {
+
+    private final LongSupplier nanoClock;
+    private final double burst;
+    private double ratePerSecond;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double ratePerSecond, double burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, double burst, LongSupplier nanoClock) {
+        if (!(ratePerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1: " + ratePerSecond + ", " + burst);
+        }
+        this.nanoClock = nanoClock;
+        this.burst = burst;
+        this.ratePerSecond = ratePerSecond;
+        this.tokens = burst;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one will be
+     */
+    public synchronized long tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerSecond * TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    public synchronized double rate() {
+        return ratePerSecond;
+    }
+
+    public synchronized void setRate(double ratePerSecond) {
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive: " + ratePerSecond);
+        }
+        refill();
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerSecond / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+    }
+}